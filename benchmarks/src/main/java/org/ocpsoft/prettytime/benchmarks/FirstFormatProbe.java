@@ -0,0 +1,63 @@
+/*
+ * Copyright 2012 <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ocpsoft.prettytime.benchmarks;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Date;
+import java.util.Locale;
+
+import org.ocpsoft.prettytime.PrettyTime;
+
+/**
+ * Runs inside the JVM forked by {@link StartupBenchmark}. Performs exactly one <code>new PrettyTime(...).format(...)</code>
+ * and reports through marker lines on standard out, so that the class loading logged by <code>-verbose:class</code> can
+ * be attributed by the parent process.
+ * <p>
+ * Usage: <code>FirstFormatProbe &lt;language tag&gt; [override bundle]</code>
+ *
+ * @author <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ */
+public class FirstFormatProbe
+{
+   static final String START = "#prettytime-start";
+   static final String FIRST_FORMAT = "#prettytime-first-format";
+   static final String ALLOCATED = "#prettytime-allocated";
+
+   public static void main(String[] args)
+   {
+      Locale locale = Locale.forLanguageTag(args[0]);
+      String overrideResourceBundle = args.length > 1 ? args[1] : null;
+      Date then = new Date(System.currentTimeMillis() - 1000 * 60 * 60 * 3);
+
+      System.out.println(START);
+      long start = System.nanoTime();
+      String result = new PrettyTime(locale, overrideResourceBundle).format(then);
+      long elapsed = System.nanoTime() - start;
+      System.out.println(FIRST_FORMAT + " " + elapsed + " " + result.length());
+
+      /*
+       * Only looked up after the first format so that the management classes do not show up in the counts above. The
+       * allocation figure therefore includes the (constant) cost of this lookup.
+       */
+      ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+      long allocated = -1;
+      if (threads instanceof com.sun.management.ThreadMXBean) {
+         allocated = ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+      }
+      System.out.println(ALLOCATED + " " + allocated);
+   }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2012 <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ocpsoft.prettytime.benchmarks;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.ocpsoft.prettytime.nlp.PrettyTimeParser;
+
+/**
+ * Measures how <code>PrettyTimeParser.parse(String, Date)</code> scales when a single parser instance is shared by an
+ * increasing number of threads, from one up to the number of available processors, doubling each time. Each thread
+ * count is run twice: once without parse templates, so that every call reaches natty, and once with the default
+ * template cache, so that calls are replayed from the shared cache. The results are written as a JSON array, one object
+ * per run, with the following fields:
+ * <ul>
+ * <li><code>templateCacheSize</code> - the maximum number of cached parse templates, zero if disabled</li>
+ * <li><code>threads</code> - the number of threads parsing concurrently</li>
+ * <li><code>parses</code> - the parses completed during the measurement</li>
+ * <li><code>parsesPerSecond</code> - the throughput of all threads together</li>
+ * <li><code>scaling</code> - the throughput relative to one thread with the same cache size times the thread count;
+ * 1.0 is linear</li>
+ * </ul>
+ * <p>
+ * Usage: <code>ParserContentionBenchmark [seconds per thread count] [output file]</code>. Every thread count is
+ * warmed up for half of its measurement time first. Without an output file the JSON is printed to standard out.
+ *
+ * @author <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ */
+public class ParserContentionBenchmark
+{
+   /**
+    * None of these is a relative expression on its own, such as "yesterday" or "three days ago", which the parser
+    * computes without natty.
+    */
+   private static final String[] INPUTS = { "let's get lunch at two pm", "I did it three days ago",
+            "yesterday at noon", "the meeting moved to next friday at seven fifteen", "remind me in twenty one days" };
+
+   public static void main(String[] args) throws Exception
+   {
+      int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+      File output = args.length > 1 ? new File(args[1]) : null;
+
+      // Templates are only cached for references with a non-zero millisecond
+      Date reference = new Date(1657830053123L);
+
+      List<Result> results = new ArrayList<>();
+      int processors = Runtime.getRuntime().availableProcessors();
+      for (int cacheSize : new int[] { 0, PrettyTimeParser.DEFAULT_TEMPLATE_CACHE_SIZE }) {
+         PrettyTimeParser parser = new PrettyTimeParser(TimeZone.getTimeZone("UTC"), cacheSize);
+         Result first = null;
+         for (int threads = 1; threads <= processors; threads = threads < processors
+                  ? Math.min(threads * 2, processors) : processors + 1) {
+            run(parser, reference, threads, seconds * 500L);
+            Result result = new Result(cacheSize, threads, run(parser, reference, threads, seconds * 1000L), seconds);
+            if (first == null)
+               first = result;
+            result.scaling = result.parsesPerSecond() / (first.parsesPerSecond() * threads);
+            results.add(result);
+         }
+      }
+
+      if (output != null) {
+         File parent = output.getAbsoluteFile().getParentFile();
+         if (parent != null)
+            parent.mkdirs();
+         try (PrintStream out = new PrintStream(output, "UTF-8")) {
+            write(results, out);
+         }
+         System.out.println("Wrote " + results.size() + " results to " + output);
+      }
+      else {
+         write(results, System.out);
+      }
+   }
+
+   /**
+    * Parse on the given number of threads for the given time, and return the number of completed parses.
+    */
+   private static long run(final PrettyTimeParser parser, final Date reference, int threads, long millis)
+            throws InterruptedException
+   {
+      final LongAdder parses = new LongAdder();
+      final AtomicBoolean running = new AtomicBoolean(true);
+      final CountDownLatch start = new CountDownLatch(1);
+      List<Thread> workers = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+         final int offset = i;
+         Thread worker = new Thread(() -> {
+            try {
+               start.await();
+            }
+            catch (InterruptedException e) {
+               return;
+            }
+            int index = offset;
+            while (running.get()) {
+               if (parser.parse(INPUTS[index++ % INPUTS.length], reference).isEmpty())
+                  throw new IllegalStateException("Nothing parsed from: " + INPUTS[(index - 1) % INPUTS.length]);
+               parses.increment();
+            }
+         }, "parser-" + i);
+         worker.start();
+         workers.add(worker);
+      }
+
+      start.countDown();
+      Thread.sleep(millis);
+      running.set(false);
+      for (Thread worker : workers) {
+         worker.join();
+      }
+      return parses.sum();
+   }
+
+   private static void write(List<Result> results, PrintStream out)
+   {
+      out.println("[");
+      for (int i = 0; i < results.size(); i++) {
+         out.print("  ");
+         out.print(results.get(i).toJson());
+         out.println(i < results.size() - 1 ? "," : "");
+      }
+      out.println("]");
+   }
+
+   private static class Result
+   {
+      private final int templateCacheSize;
+      private final int threads;
+      private final long parses;
+      private final int seconds;
+      private double scaling;
+
+      Result(int templateCacheSize, int threads, long parses, int seconds)
+      {
+         this.templateCacheSize = templateCacheSize;
+         this.threads = threads;
+         this.parses = parses;
+         this.seconds = seconds;
+      }
+
+      double parsesPerSecond()
+      {
+         return (double) parses / seconds;
+      }
+
+      String toJson()
+      {
+         return "{\"templateCacheSize\": " + templateCacheSize + ", \"threads\": " + threads + ", \"parses\": " + parses + ", \"parsesPerSecond\": "
+                  + Math.round(parsesPerSecond()) + ", \"scaling\": " + Math.round(scaling * 100) / 100.0 + "}";
+      }
+   }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2012 <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ocpsoft.prettytime.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.ocpsoft.prettytime.benchmarks.i18n.OverrideResources;
+
+/**
+ * Measures the cold start cost of PrettyTime: for every bundled locale, with and without an override bundle, a fresh
+ * JVM is forked that runs {@link FirstFormatProbe}. The results are written as a JSON array, one object per fork, with
+ * the following fields:
+ * <ul>
+ * <li><code>wallMillis</code> - from spawning the JVM until the first format call returned</li>
+ * <li><code>formatNanos</code> - the first <code>new PrettyTime(...).format(...)</code> call alone</li>
+ * <li><code>classesLoaded</code> - classes loaded from JVM start until the first format call returned</li>
+ * <li><code>formatClassesLoaded</code> - classes loaded by the first format call alone</li>
+ * <li><code>allocatedBytes</code> - bytes allocated by the main thread until the first format call returned</li>
+ * </ul>
+ * <p>
+ * Usage: <code>StartupBenchmark [forks per scenario] [output file]</code>. Without an output file the JSON is printed
+ * to standard out.
+ *
+ * @author <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ */
+public class StartupBenchmark
+{
+   private static final String NATIVE_IMAGE_BUNDLES = "META-INF/native-image/org.ocpsoft.prettytime/prettytime/resource-config.json";
+   private static final Pattern LOCALES = Pattern.compile("\"locales\"\\s*:\\s*\\[([^\\]]*)\\]");
+   private static final Pattern QUOTED = Pattern.compile("\"([^\"]+)\"");
+
+   public static void main(String[] args) throws Exception
+   {
+      int forks = args.length > 0 ? Integer.parseInt(args[0]) : 1;
+      File output = args.length > 1 ? new File(args[1]) : null;
+
+      List<String> overrides = Arrays.asList(null, OverrideResources.class.getName());
+      List<Result> results = new ArrayList<>();
+      for (String locale : bundledLocales()) {
+         for (String override : overrides) {
+            for (int fork = 0; fork < forks; fork++) {
+               results.add(run(locale, override, fork));
+            }
+         }
+      }
+
+      if (output != null) {
+         File parent = output.getAbsoluteFile().getParentFile();
+         if (parent != null)
+            parent.mkdirs();
+         try (PrintStream out = new PrintStream(output, "UTF-8")) {
+            write(results, out);
+         }
+         System.out.println("Wrote " + results.size() + " results to " + output);
+      }
+      else {
+         write(results, System.out);
+      }
+   }
+
+   /**
+    * The locales registered for native-image are the authoritative list of bundled <code>Resources_*</code> classes.
+    */
+   static List<String> bundledLocales() throws IOException
+   {
+      InputStream stream = StartupBenchmark.class.getClassLoader().getResourceAsStream(NATIVE_IMAGE_BUNDLES);
+      if (stream == null)
+         throw new IllegalStateException("Could not find " + NATIVE_IMAGE_BUNDLES + " on the classpath.");
+
+      StringBuilder config = new StringBuilder();
+      try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+         String line;
+         while ((line = reader.readLine()) != null) {
+            config.append(line).append('\n');
+         }
+      }
+
+      List<String> result = new ArrayList<>();
+      Matcher locales = LOCALES.matcher(config);
+      if (locales.find()) {
+         Matcher quoted = QUOTED.matcher(locales.group(1));
+         while (quoted.find()) {
+            result.add(quoted.group(1));
+         }
+      }
+      return result;
+   }
+
+   private static Result run(String locale, String override, int fork) throws IOException, InterruptedException
+   {
+      List<String> command = new ArrayList<>();
+      command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+      command.add("-verbose:class");
+      command.add("-cp");
+      command.add(System.getProperty("java.class.path"));
+      command.add(FirstFormatProbe.class.getName());
+      command.add(locale);
+      if (override != null)
+         command.add(override);
+
+      Result result = new Result(locale, override != null, fork);
+      ProcessBuilder builder = new ProcessBuilder(command).redirectErrorStream(true);
+
+      long spawned = System.nanoTime();
+      Process process = builder.start();
+      try (BufferedReader reader = new BufferedReader(
+               new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+         long loaded = 0;
+         long loadedBeforeStart = -1;
+         String line;
+         while ((line = reader.readLine()) != null) {
+            if (line.startsWith(FirstFormatProbe.START)) {
+               loadedBeforeStart = loaded;
+            }
+            else if (line.startsWith(FirstFormatProbe.FIRST_FORMAT)) {
+               result.wallMillis = (System.nanoTime() - spawned) / 1000000;
+               result.formatNanos = Long.parseLong(line.split(" ")[1]);
+               result.classesLoaded = loaded;
+               result.formatClassesLoaded = loaded - loadedBeforeStart;
+            }
+            else if (line.startsWith(FirstFormatProbe.ALLOCATED)) {
+               result.allocatedBytes = Long.parseLong(line.split(" ")[1]);
+            }
+            else if (result.classesLoaded < 0 && isClassLoad(line)) {
+               loaded++;
+            }
+         }
+      }
+
+      int exit = process.waitFor();
+      if (exit != 0 || result.classesLoaded < 0)
+         throw new IllegalStateException("Probe for [" + locale + "] with override [" + override + "] failed ("
+                  + exit + ").");
+      return result;
+   }
+
+   private static boolean isClassLoad(String line)
+   {
+      // Java 8: "[Loaded java.lang.Object from ...]", Java 9+: "[0.005s][info][class,load] java.lang.Object ..."
+      return line.startsWith("[Loaded ") || line.contains("[class,load]");
+   }
+
+   private static void write(List<Result> results, PrintStream out)
+   {
+      out.println("[");
+      for (int i = 0; i < results.size(); i++) {
+         out.print("  ");
+         out.print(results.get(i).toJson());
+         out.println(i < results.size() - 1 ? "," : "");
+      }
+      out.println("]");
+   }
+
+   private static class Result
+   {
+      private final String locale;
+      private final boolean override;
+      private final int fork;
+      private long wallMillis = -1;
+      private long formatNanos = -1;
+      private long classesLoaded = -1;
+      private long formatClassesLoaded = -1;
+      private long allocatedBytes = -1;
+
+      Result(String locale, boolean override, int fork)
+      {
+         this.locale = locale;
+         this.override = override;
+         this.fork = fork;
+      }
+
+      String toJson()
+      {
+         return "{\"locale\": \"" + locale + "\", \"override\": " + override + ", \"fork\": " + fork
+                  + ", \"wallMillis\": " + wallMillis + ", \"formatNanos\": " + formatNanos
+                  + ", \"classesLoaded\": " + classesLoaded + ", \"formatClassesLoaded\": " + formatClassesLoaded
+                  + ", \"allocatedBytes\": " + allocatedBytes + "}";
+      }
+   }
+}
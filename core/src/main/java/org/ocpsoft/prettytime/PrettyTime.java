@@ -24,18 +24,25 @@ import java.time.ZonedDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 
+import org.ocpsoft.prettytime.format.SimpleTimeFormat;
 import org.ocpsoft.prettytime.impl.DurationImpl;
 import org.ocpsoft.prettytime.impl.ResourcesTimeFormat;
 import org.ocpsoft.prettytime.impl.ResourcesTimeUnit;
+import org.ocpsoft.prettytime.impl.ZoneOffsetTable;
+import org.ocpsoft.prettytime.metrics.Metrics;
+import org.ocpsoft.prettytime.metrics.PrettyTimeMetrics.Operation;
+import org.ocpsoft.prettytime.metrics.PrettyTimeMetrics.Span;
 import org.ocpsoft.prettytime.units.Century;
 import org.ocpsoft.prettytime.units.Day;
 import org.ocpsoft.prettytime.units.Decade;
@@ -71,10 +78,13 @@ import org.ocpsoft.prettytime.units.Year;
  */
 public class PrettyTime
 {
+   private static final int MAX_LOCALIZED_FORMATS = 100;
+
    private volatile Instant reference;
    private volatile Locale locale = Locale.getDefault();
    private final Map<TimeUnit, TimeFormat> units = new ConcurrentHashMap<>();
    private volatile List<TimeUnit> cachedUnits;
+   private final Map<Locale, Map<TimeUnit, TimeFormat>> localizedFormats = new ConcurrentHashMap<>();
    private String overrideResourceBundle;
 
    /**
@@ -350,6 +360,24 @@ public class PrettyTime
       return approximateDuration(then != null ? Date.from(then) : null);
    }
 
+   /**
+    * Calculate the approximate {@link Duration} between the given reference {@link Instant} and given {@link Instant},
+    * ignoring the reference of this {@link PrettyTime} instance. If the given {@link Instant} is <code>null</code>, the
+    * given reference will be used instead. If the given reference is <code>null</code>, the current value of
+    * {@link System#currentTimeMillis()} will be used instead.
+    *
+    * @see #format(Instant, Instant)
+    */
+   public Duration approximateDuration(final Instant then, final Instant reference)
+   {
+      final Instant ref = reference != null ? reference : Instant.now();
+      long difference = (then != null ? then : ref).toEpochMilli() - ref.toEpochMilli();
+      if (difference == 0) {
+         difference = 1;
+      }
+      return calculateDuration(difference);
+   }
+
    /**
     * Calculate the approximate {@link Duration} between the reference {@link Instant} and given {@link LocalDateTime}.
     * If the given {@link LocalDateTime} is <code>null</code>, the current value of {@link System#currentTimeMillis()}
@@ -446,6 +474,7 @@ public class PrettyTime
       if (then == null)
          then = Instant.now();
 
+      final long start = Metrics.start();
       final Instant reference = this.reference != null ? this.reference : Instant.now();
 
       List<Duration> result = new ArrayList<>();
@@ -464,6 +493,7 @@ public class PrettyTime
          if (duration.getUnit().isPrecise())
             result.add(duration);
       }
+      Metrics.called(Operation.PRECISE_DURATION, locale, result.get(result.size() - 1).getUnit(), start);
       return result;
    }
 
@@ -596,9 +626,12 @@ public class PrettyTime
       if (duration == null)
          return format(now());
 
+      final long start = Metrics.start();
       TimeFormat format = getFormat(duration.getUnit());
       String time = format.format(duration);
-      return format.decorate(duration, time);
+      String result = format.decorate(duration, time);
+      Metrics.called(Operation.FORMAT, locale, duration.getUnit(), start);
+      return result;
    }
 
    /**
@@ -615,6 +648,7 @@ public class PrettyTime
       if (durations == null || durations.isEmpty())
          return format(now());
 
+      final long start = Metrics.start();
       StringBuilder result = new StringBuilder();
 
       Duration duration = null;
@@ -635,7 +669,9 @@ public class PrettyTime
             result.append(format.format(duration));
       }
 
-      return format.decorateUnrounded(duration, result.toString());
+      String decorated = format.decorateUnrounded(duration, result.toString());
+      Metrics.called(Operation.FORMAT, locale, duration.getUnit(), start);
+      return decorated;
    }
 
    /**
@@ -650,6 +686,118 @@ public class PrettyTime
       return format(approximateDuration(then));
    }
 
+   /**
+    * Format the given {@link Instant} object relative to the given reference {@link Instant}, ignoring the reference of
+    * this {@link PrettyTime} instance. Unlike {@link #setReference(Instant)} this does not modify the instance, so it
+    * may be used on instances that are shared between threads. If the given {@link Instant} is <code>null</code>, the
+    * given reference will be used instead. If the given reference is <code>null</code>, the current value of
+    * {@link System#currentTimeMillis()} will be used instead.
+    *
+    * @param then the {@link Instant} to be formatted
+    * @param reference the {@link Instant} that {@code then} is relative to
+    * @return A formatted string representing {@code then}
+    */
+   public String format(final Instant then, final Instant reference)
+   {
+      return format(approximateDuration(then, reference));
+   }
+
+   /**
+    * Format the given {@link Instant} once for each of the given {@link Locale} instances. The {@link Duration} is
+    * calculated only once, using the registered {@link TimeUnit} instances, and then rendered by the registered
+    * {@link TimeFormat} instances localized to each {@link Locale}. This instance's own {@link Locale} is not changed,
+    * and the localized formats are kept for subsequent calls. A <code>null</code> {@link Locale} stands for
+    * {@link Locale#getDefault()}.
+    * <p>
+    * {@link ResourcesTimeFormat} instances are localized by {@link ResourcesTimeFormat#withLocale(Locale)}, and
+    * {@link TimeFormat} instances that are not {@link LocaleAware} are used as is for every {@link Locale}. Other
+    * {@link LocaleAware} {@link TimeUnit} or {@link TimeFormat} instances cannot be copied, so if any is registered,
+    * this instance is switched to each {@link Locale} in turn by {@link #setLocale(Locale)}, and back; it must then not
+    * be used by other threads during this call.
+    *
+    * @param then the {@link Instant} to be formatted
+    * @param locales the {@link Locale} instances to format for
+    * @return the formatted {@link String} for each {@link Locale}, in iteration order of {@code locales}
+    */
+   public Map<Locale, String> formatForLocales(final Instant then, final Collection<Locale> locales)
+   {
+      Objects.requireNonNull(locales, "Locales must not be null.");
+
+      if (hasUncopyableLocaleAware())
+         return formatForLocalesInPlace(then, locales);
+
+      Duration duration = approximateDuration(then);
+      TimeUnit unit = duration.getUnit();
+      Map<Locale, String> result = new LinkedHashMap<>();
+      for (Locale target : locales) {
+         Locale locale = target == null ? Locale.getDefault() : target;
+         if (result.containsKey(locale))
+            continue;
+
+         final long start = Metrics.start();
+         TimeFormat format = locale.equals(this.locale) ? getFormat(unit) : getLocalizedFormats(locale).get(unit);
+         if (format == null)
+            throw new IllegalArgumentException("Unsupported time unit: " + unit);
+         result.put(locale, format.decorate(duration, format.format(duration)));
+         Metrics.called(Operation.FORMAT, locale, unit, start);
+      }
+      return result;
+   }
+
+   private boolean hasUncopyableLocaleAware()
+   {
+      for (Map.Entry<TimeUnit, TimeFormat> entry : units.entrySet()) {
+         if (entry.getKey() instanceof LocaleAware)
+            return true;
+         // SimpleTimeFormat only keeps the Locale, and ResourcesTimeFormat is copied by withLocale
+         Class<?> type = entry.getValue().getClass();
+         if (entry.getValue() instanceof LocaleAware && type != SimpleTimeFormat.class
+                  && type != ResourcesTimeFormat.class)
+            return true;
+      }
+      return false;
+   }
+
+   private synchronized Map<Locale, String> formatForLocalesInPlace(final Instant then,
+            final Collection<Locale> locales)
+   {
+      Locale original = this.locale;
+      Map<Locale, String> result = new LinkedHashMap<>();
+      try {
+         for (Locale target : locales) {
+            Locale locale = target == null ? Locale.getDefault() : target;
+            if (result.containsKey(locale))
+               continue;
+            if (!locale.equals(this.locale))
+               setLocale(locale);
+            result.put(locale, format(then));
+         }
+      }
+      finally {
+         if (!Objects.equals(original, this.locale))
+            setLocale(original);
+      }
+      return result;
+   }
+
+   private Map<TimeUnit, TimeFormat> getLocalizedFormats(final Locale locale)
+   {
+      Map<TimeUnit, TimeFormat> result = localizedFormats.get(locale);
+      if (result == null) {
+         result = new ConcurrentHashMap<>();
+         for (Map.Entry<TimeUnit, TimeFormat> entry : units.entrySet()) {
+            TimeFormat format = entry.getValue();
+            if (format instanceof ResourcesTimeFormat)
+               format = ((ResourcesTimeFormat) format).withLocale(locale);
+            result.put(entry.getKey(), format);
+         }
+         if (localizedFormats.size() >= MAX_LOCALIZED_FORMATS)
+            localizedFormats.clear();
+         localizedFormats.put(locale, result);
+      }
+      return result;
+   }
+
    /**
     * Format the given {@link ZonedDateTime} object. If the given {@link ZonedDateTime} is <code>null</code>, the
     * current value of {@link System#currentTimeMillis()} will be used instead.
@@ -733,6 +881,80 @@ public class PrettyTime
       return format(then != null ? then.atStartOfDay() : null);
    }
 
+   /**
+    * Format each of the given {@link LocalDateTime} objects using the given {@link ZoneId}, as
+    * {@link #format(LocalDateTime, ZoneId)} would. The offset transitions of the {@link ZoneId} are looked up once for
+    * the range of the given values, and the reference is fixed for the whole batch. <code>null</code> elements are
+    * formatted as the reference.
+    *
+    * @param then the {@link LocalDateTime} objects to be formatted
+    * @param zoneId the {@link ZoneId} to be used, not null
+    * @return A formatted string for each element of {@code then}, in the same order
+    * @see ZoneOffsetTable
+    */
+   public String[] format(final LocalDateTime[] then, final ZoneId zoneId)
+   {
+      Objects.requireNonNull(then, "LocalDateTime array must not be null.");
+      LocalDateTime first = null;
+      LocalDateTime last = null;
+      for (LocalDateTime value : then) {
+         if (value != null) {
+            if (first == null || value.isBefore(first))
+               first = value;
+            if (last == null || value.isAfter(last))
+               last = value;
+         }
+      }
+
+      ZoneOffsetTable table = first != null ? ZoneOffsetTable.of(zoneId, first, last) : null;
+      long ref = (reference != null ? reference : Instant.now()).toEpochMilli();
+      String[] result = new String[then.length];
+      for (int i = 0; i < then.length; i++) {
+         result[i] = format(then[i] != null ? table.toEpochMilli(then[i]) : ref, ref);
+      }
+      return result;
+   }
+
+   /**
+    * Format each of the given {@link LocalDate} objects using the given {@link ZoneId}, as
+    * {@link #format(LocalDate, ZoneId)} would. The offset transitions of the {@link ZoneId} are looked up once for the
+    * range of the given values, and the reference is fixed for the whole batch. <code>null</code> elements are
+    * formatted as the reference.
+    *
+    * @param then the {@link LocalDate} objects to be formatted
+    * @param zoneId the {@link ZoneId} to be used, not null
+    * @return A formatted string for each element of {@code then}, in the same order
+    * @see ZoneOffsetTable
+    */
+   public String[] format(final LocalDate[] then, final ZoneId zoneId)
+   {
+      Objects.requireNonNull(then, "LocalDate array must not be null.");
+      LocalDate first = null;
+      LocalDate last = null;
+      for (LocalDate value : then) {
+         if (value != null) {
+            if (first == null || value.isBefore(first))
+               first = value;
+            if (last == null || value.isAfter(last))
+               last = value;
+         }
+      }
+
+      ZoneOffsetTable table = first != null ? ZoneOffsetTable.of(zoneId, first, last) : null;
+      long ref = (reference != null ? reference : Instant.now()).toEpochMilli();
+      String[] result = new String[then.length];
+      for (int i = 0; i < then.length; i++) {
+         result[i] = format(then[i] != null ? table.toEpochMilli(then[i]) : ref, ref);
+      }
+      return result;
+   }
+
+   private String format(final long then, final long reference)
+   {
+      long difference = then - reference;
+      return format(calculateDuration(difference == 0 ? 1 : difference));
+   }
+
    /**
     * Format the given {@link Date} object. Rounding rules are ignored. If the given {@link Date} is <code>null</code>,
     * the current value of {@link System#currentTimeMillis()} will be used instead.
@@ -777,9 +999,12 @@ public class PrettyTime
       if (duration == null)
          return formatUnrounded(now());
 
+      final long start = Metrics.start();
       TimeFormat format = getFormat(duration.getUnit());
       String time = format.formatUnrounded(duration);
-      return format.decorateUnrounded(duration, time);
+      String result = format.decorateUnrounded(duration, time);
+      Metrics.called(Operation.FORMAT_UNROUNDED, locale, duration.getUnit(), start);
+      return result;
    }
 
    /**
@@ -795,6 +1020,7 @@ public class PrettyTime
       if (durations == null || durations.isEmpty())
          return format(now());
 
+      final long start = Metrics.start();
       StringBuilder result = new StringBuilder();
 
       Duration duration = null;
@@ -808,7 +1034,9 @@ public class PrettyTime
             result.append(" ");
       }
 
-      return format.decorateUnrounded(duration, result.toString());
+      String decorated = format.decorateUnrounded(duration, result.toString());
+      Metrics.called(Operation.FORMAT_UNROUNDED, locale, duration.getUnit(), start);
+      return decorated;
    }
 
    /**
@@ -957,8 +1185,11 @@ public class PrettyTime
       if (duration == null)
          return format(now());
 
+      final long start = Metrics.start();
       TimeFormat timeFormat = getFormat(duration.getUnit());
-      return timeFormat.format(duration);
+      String result = timeFormat.format(duration);
+      Metrics.called(Operation.FORMAT_DURATION, locale, duration.getUnit(), start);
+      return result;
    }
 
    /**
@@ -975,6 +1206,7 @@ public class PrettyTime
       if (durations == null || durations.isEmpty())
          return format(now());
 
+      final long start = Metrics.start();
       StringBuilder result = new StringBuilder();
 
       Duration duration = null;
@@ -992,6 +1224,7 @@ public class PrettyTime
             result.append(format.format(duration));
       }
 
+      Metrics.called(Operation.FORMAT_DURATION, locale, duration.getUnit(), start);
       return result.toString();
    }
 
@@ -1157,8 +1390,11 @@ public class PrettyTime
       if (duration == null)
          return format(now());
 
+      final long start = Metrics.start();
       TimeFormat timeFormat = getFormat(duration.getUnit());
-      return timeFormat.formatUnrounded(duration);
+      String result = timeFormat.formatUnrounded(duration);
+      Metrics.called(Operation.FORMAT_DURATION_UNROUNDED, locale, duration.getUnit(), start);
+      return result;
    }
 
    /**
@@ -1175,6 +1411,7 @@ public class PrettyTime
       if (durations == null || durations.isEmpty())
          return format(now());
 
+      final long start = Metrics.start();
       StringBuilder result = new StringBuilder();
       Duration duration = null;
       TimeFormat format = null;
@@ -1187,6 +1424,7 @@ public class PrettyTime
             result.append(" ");
       }
 
+      Metrics.called(Operation.FORMAT_DURATION_UNROUNDED, locale, duration.getUnit(), start);
       return result.toString();
    }
 
@@ -1301,6 +1539,75 @@ public class PrettyTime
       return formatDurationUnrounded(then != null ? then.atStartOfDay() : null);
    }
 
+   /**
+    * Calculate the earliest {@link Instant} at which {@link #format(Instant)} of the given {@link Instant} will produce
+    * a different {@link String} than it does now, as the reference {@link Instant} moves forward. If no reference
+    * {@link Instant} is set, this is the point in time at which the text rendered for {@code then} becomes stale. If
+    * the given {@link Instant} is <code>null</code>, the current value of {@link System#currentTimeMillis()} will be
+    * used instead.
+    * <p>
+    * The change is derived from the configured {@link TimeUnit} thresholds and the rounding of the registered
+    * {@link TimeFormat} instances, and verified against the actual formatted output.
+    *
+    * @param then the {@link Instant} to be formatted
+    * @return the earliest reference {@link Instant} for which the formatted text differs, or <code>null</code> if it
+    *         will never change
+    * @see #nextChange(long)
+    */
+   public Instant nextChange(final Instant then)
+   {
+      long result = nextChange(then != null ? then.toEpochMilli() : System.currentTimeMillis());
+      return result == Long.MAX_VALUE ? null : Instant.ofEpochMilli(result);
+   }
+
+   /**
+    * Calculate the earliest point in time, in milliseconds since the epoch, at which {@link #format(Instant)} of the
+    * given point in time will produce a different {@link String} than it does now, as the reference {@link Instant}
+    * moves forward.
+    *
+    * @param then the point in time to be formatted, in milliseconds since the epoch
+    * @return the earliest reference, in milliseconds since the epoch, for which the formatted text differs, or
+    *         {@link Long#MAX_VALUE} if it will never change
+    * @see #nextChange(Instant)
+    */
+   public long nextChange(final long then)
+   {
+      return nextChange(then, this.reference != null ? this.reference.toEpochMilli() : System.currentTimeMillis());
+   }
+
+   /**
+    * Calculate the earliest {@link Instant} at which {@link #format(Instant, Instant)} of the given {@link Instant} will
+    * produce a different {@link String} than it does for the given reference {@link Instant}, ignoring the reference
+    * of this {@link PrettyTime} instance. If the given {@link Instant} is <code>null</code>, the given reference will
+    * be used instead. If the given reference is <code>null</code>, the current value of
+    * {@link System#currentTimeMillis()} will be used instead.
+    *
+    * @param then the {@link Instant} to be formatted
+    * @param reference the {@link Instant} that {@code then} is relative to
+    * @return the earliest reference {@link Instant} for which the formatted text differs, or <code>null</code> if it
+    *         will never change
+    * @see #nextChange(Instant)
+    */
+   public Instant nextChange(final Instant then, final Instant reference)
+   {
+      final long ref = reference != null ? reference.toEpochMilli() : System.currentTimeMillis();
+      long result = nextChange(then != null ? then.toEpochMilli() : ref, ref);
+      return result == Long.MAX_VALUE ? null : Instant.ofEpochMilli(result);
+   }
+
+   private long nextChange(final long then, final long reference)
+   {
+      long difference = then - reference;
+      if (difference == 0) {
+         difference = 1;
+      }
+
+      long changed = nextChangedDifference(difference);
+      if (changed == Long.MIN_VALUE)
+         return Long.MAX_VALUE;
+      return then - changed;
+   }
+
    /**
     * Get the registered {@link TimeFormat} for the given {@link TimeUnit} or <code>null</code> if none exists.
     */
@@ -1313,6 +1620,7 @@ public class PrettyTime
       }
       else {
          // Trying to transform the TimeUnit to String does the trick
+         Metrics.formatFallback(unit);
          Map<String, TimeFormat> map = new ConcurrentHashMap<>();
          units.keySet().forEach(key -> map.put(key.toString(), units.get(key)));
          return map.get(unit.toString());
@@ -1487,6 +1795,7 @@ public class PrettyTime
    public PrettyTime registerUnit(final TimeUnit unit, TimeFormat format)
    {
       cachedUnits = null;
+      localizedFormats.clear();
 
       units.put(Objects.requireNonNull(unit, "TimeUnit to register must not be null."),
                Objects.requireNonNull(format, "TimeFormat to register must not be null."));
@@ -1551,6 +1860,7 @@ public class PrettyTime
       for (TimeUnit unit : units.keySet()) {
          if (unitType.isAssignableFrom(unit.getClass())) {
             cachedUnits = null;
+            localizedFormats.clear();
 
             return units.remove(unit);
          }
@@ -1569,6 +1879,7 @@ public class PrettyTime
          return null;
 
       cachedUnits = null;
+      localizedFormats.clear();
 
       return units.remove(unit);
    }
@@ -1602,6 +1913,7 @@ public class PrettyTime
       if (locale == null)
          locale = Locale.getDefault();
 
+      final long start = Metrics.timestamp(Span.LOCALE_CHANGE);
       this.locale = locale;
       for (TimeUnit unit : units.keySet()) {
          if (unit instanceof LocaleAware)
@@ -1612,6 +1924,8 @@ public class PrettyTime
             ((LocaleAware<?>) format).setLocale(locale);
       }
       cachedUnits = null;
+      localizedFormats.clear();
+      Metrics.localeChanged(locale, start);
       return this;
    }
 
@@ -1628,6 +1942,7 @@ public class PrettyTime
    {
       List<TimeUnit> result = getUnits();
       cachedUnits = null;
+      localizedFormats.clear();
       units.clear();
       return result;
    }
@@ -1703,6 +2018,163 @@ public class PrettyTime
       return result;
    }
 
+   /**
+    * Return the largest difference smaller than the given one for which the formatted text differs, or
+    * {@link Long#MIN_VALUE} if there is none.
+    */
+   private long nextChangedDifference(final long difference)
+   {
+      List<TimeUnit> localUnits = getUnits();
+      if (localUnits.isEmpty())
+         return Long.MIN_VALUE;
+
+      long[] thresholds = getThresholds(localUnits);
+      String current = render(difference);
+
+      /*
+       * Walk down through the unit bands, at most once per unit on either side of zero.
+       */
+      long candidate = difference;
+      for (int i = 0; i <= 2 * localUnits.size() + 1; i++) {
+         int index = getUnitIndex(thresholds, candidate);
+         TimeUnit unit = localUnits.get(index);
+         long millisPerUnit = Math.abs(unit.getMillisPerUnit());
+         long lowest = getBandEnd(thresholds, index, candidate, millisPerUnit);
+
+         /*
+          * Usually the text changes at the next rounding boundary of the current unit.
+          */
+         long boundary = getRoundingBoundary(candidate, millisPerUnit, getRoundingTolerance(unit));
+         if (boundary != Long.MIN_VALUE && boundary >= lowest && boundary < candidate
+                  && !current.equals(render(boundary))) {
+            if (boundary + 1 == candidate || current.equals(render(boundary + 1)))
+               return boundary;
+            return searchChange(boundary + 1, candidate, current);
+         }
+
+         if (!current.equals(render(lowest)))
+            return searchChange(lowest, candidate, current);
+
+         candidate = lowest - 1;
+         if (candidate == 0)
+            candidate = -1;
+         if (!current.equals(render(candidate)))
+            return candidate;
+      }
+      return Long.MIN_VALUE;
+   }
+
+   /**
+    * Binary search for the largest difference in <code>[changed, unchanged)</code> whose text differs from the given
+    * text. Relies on the text being the same for every difference between the result and <code>unchanged</code>.
+    */
+   private long searchChange(long changed, long unchanged, final String current)
+   {
+      while (unchanged - changed > 1) {
+         long middle = changed + (unchanged - changed) / 2;
+         if (current.equals(render(middle)))
+            unchanged = middle;
+         else
+            changed = middle;
+      }
+      return changed;
+   }
+
+   private String render(final long difference)
+   {
+      Duration duration = calculateDuration(difference == 0 ? 1 : difference);
+      TimeFormat format = getFormat(duration.getUnit());
+      return format.decorate(duration, format.format(duration));
+   }
+
+   /**
+    * The absolute difference below which each unit is selected by {@link #calculateDuration(long)}.
+    */
+   private long[] getThresholds(final List<TimeUnit> localUnits)
+   {
+      long[] result = new long[localUnits.size()];
+      for (int i = 0; i < localUnits.size(); i++) {
+         TimeUnit unit = localUnits.get(i);
+         long quantity = Math.abs(unit.getMaxQuantity());
+         boolean isLastUnit = (i == localUnits.size() - 1);
+
+         if ((0 == quantity) && !isLastUnit) {
+            quantity = localUnits.get(i + 1).getMillisPerUnit() / unit.getMillisPerUnit();
+         }
+         result[i] = isLastUnit ? Long.MAX_VALUE : Math.abs(unit.getMillisPerUnit()) * quantity;
+      }
+      return result;
+   }
+
+   private int getUnitIndex(final long[] thresholds, final long difference)
+   {
+      long absoluteDifference = Math.abs(difference);
+      for (int i = 0; i < thresholds.length - 1; i++) {
+         if (thresholds[i] > absoluteDifference)
+            return i;
+      }
+      return thresholds.length - 1;
+   }
+
+   /**
+    * The smallest difference, going down from the given one, that still selects the same unit on the same side of
+    * zero. The last unit in the past is unbounded, so only a window of two units is considered.
+    */
+   private long getBandEnd(final long[] thresholds, final int index, final long difference, final long millisPerUnit)
+   {
+      if (difference > 0) {
+         long lower = 0;
+         for (int i = 0; i < index; i++) {
+            lower = Math.max(lower, thresholds[i]);
+         }
+         return Math.max(1, lower);
+      }
+      if (index == thresholds.length - 1)
+         return difference - 2 * Math.max(1, millisPerUnit);
+      return -(thresholds[index] - 1);
+   }
+
+   private int getRoundingTolerance(final TimeUnit unit)
+   {
+      TimeFormat format = getFormat(unit);
+      return format instanceof SimpleTimeFormat ? ((SimpleTimeFormat) format).getRoundingTolerance() : 50;
+   }
+
+   /**
+    * The next difference, going down from the given one, at which {@link Duration#getQuantityRounded(int)} changes
+    * within the same unit, or {@link Long#MIN_VALUE} if it does not change before the unit does.
+    */
+   private long getRoundingBoundary(final long difference, final long millisPerUnit, final int tolerance)
+   {
+      if (millisPerUnit <= 0)
+         return Long.MIN_VALUE;
+
+      /*
+       * The largest remainder that is not rounded up.
+       */
+      long roundDown = Math.max(-1, Math.min(millisPerUnit - 1, (long) (tolerance * (double) millisPerUnit / 100)));
+      while (roundDown + 1 < millisPerUnit && ((double) (roundDown + 1) / (double) millisPerUnit) * 100 <= tolerance)
+         roundDown++;
+      while (roundDown >= 0 && ((double) roundDown / (double) millisPerUnit) * 100 > tolerance)
+         roundDown--;
+
+      long absoluteDifference = Math.abs(difference);
+      long quantity = absoluteDifference / millisPerUnit;
+      long delta = absoluteDifference % millisPerUnit;
+
+      if (difference > 0) {
+         if (delta > roundDown)
+            return quantity * millisPerUnit + roundDown;
+         if (quantity <= 1)
+            return Long.MIN_VALUE;
+         return (quantity - 1) * millisPerUnit + roundDown;
+      }
+
+      if (quantity > 0 && delta > roundDown)
+         return -((quantity + 1) * millisPerUnit + roundDown + 1);
+      return -(Math.max(1, quantity) * millisPerUnit + roundDown + 1);
+   }
+
    private long getSign(final long difference)
    {
       if (0 > difference) {
@@ -0,0 +1,271 @@
+/*
+ * Copyright 2012 <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ocpsoft.prettytime.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.ocpsoft.prettytime.PrettyTime;
+
+/**
+ * A bounded, approximately least recently used cache of shared {@link PrettyTime} instances per {@link Locale}. Each
+ * cache has a name, under which it can be exposed for monitoring (see
+ * {@link org.ocpsoft.prettytime.management.PrettyTimeManagement}).
+ * <p>
+ * Lookups never lock: a hit is a {@link ConcurrentHashMap} read plus an access stamp that is only written when it has
+ * gone stale. Stamps advance on every miss, so recency is exact between misses, and entries used since the last miss
+ * are considered equally recent. Eviction scans the entries for the oldest stamp, which only happens on a miss that
+ * grows the cache beyond its maximum size.
+ * <p>
+ * The cached {@link PrettyTime} instances are shared between threads and must not be reconfigured by callers.
+ * 
+ * @author <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ */
+public class PrettyTimeCache
+{
+   private final String name;
+   private final Function<Locale, PrettyTime> factory;
+   private final ConcurrentHashMap<Locale, Entry> entries = new ConcurrentHashMap<>();
+   private final AtomicLong clock = new AtomicLong();
+   private volatile int maxSize;
+
+   private final LongAdder hits = new LongAdder();
+   private final LongAdder misses = new LongAdder();
+   private final LongAdder evictions = new LongAdder();
+
+   /**
+    * Create a new {@link PrettyTimeCache} with the given name and maximum number of entries, creating
+    * {@link PrettyTime} instances with {@link PrettyTime#PrettyTime(Locale)}.
+    */
+   public PrettyTimeCache(final String name, final int maxSize)
+   {
+      this(name, maxSize, PrettyTime::new);
+   }
+
+   /**
+    * Create a new {@link PrettyTimeCache} with the given name and maximum number of entries, creating
+    * {@link PrettyTime} instances with the given factory.
+    */
+   public PrettyTimeCache(final String name, final int maxSize, final Function<Locale, PrettyTime> factory)
+   {
+      this.name = Objects.requireNonNull(name, "Cache name must not be null.");
+      this.factory = Objects.requireNonNull(factory, "PrettyTime factory must not be null.");
+      this.maxSize = checkSize(maxSize);
+   }
+
+   /**
+    * Return the cached {@link PrettyTime} for the given {@link Locale}, creating it if necessary. A <code>null</code>
+    * {@link Locale} is treated as {@link Locale#getDefault()}.
+    */
+   public PrettyTime get(Locale locale)
+   {
+      if (locale == null)
+         locale = Locale.getDefault();
+
+      Entry entry = entries.get(locale);
+      if (entry != null) {
+         hits.increment();
+         entry.touch(clock.get());
+         return entry.prettyTime;
+      }
+
+      /*
+       * Another thread may have loaded the same locale in the meantime, which then counts as a hit.
+       */
+      final Entry[] loaded = new Entry[1];
+      entry = entries.computeIfAbsent(locale, key -> loaded[0] = load(key));
+      if (loaded[0] == null) {
+         hits.increment();
+         entry.touch(clock.get());
+      }
+      else {
+         evict();
+      }
+      return entry.prettyTime;
+   }
+
+   /**
+    * Create and cache {@link PrettyTime} instances for each of the given {@link Locale} instances that are not cached
+    * yet. Does not count as hits or misses.
+    */
+   public void preload(final Collection<Locale> locales)
+   {
+      for (Locale locale : locales) {
+         if (locale == null)
+            continue;
+         entries.computeIfAbsent(locale, key -> new Entry(factory.apply(key), advance()));
+         evict();
+      }
+   }
+
+   /**
+    * Remove the cached {@link PrettyTime} for the given {@link Locale}. Return <code>true</code> if there was one.
+    */
+   public boolean clear(final Locale locale)
+   {
+      return locale != null && entries.remove(locale) != null;
+   }
+
+   /**
+    * Remove all cached {@link PrettyTime} instances. Statistics are kept.
+    */
+   public void clear()
+   {
+      entries.clear();
+   }
+
+   /**
+    * Change the maximum number of entries, evicting the least recently used entries if the cache is now too large.
+    */
+   public void setMaxSize(final int maxSize)
+   {
+      this.maxSize = checkSize(maxSize);
+      evict();
+   }
+
+   public String getName()
+   {
+      return name;
+   }
+
+   public int getMaxSize()
+   {
+      return maxSize;
+   }
+
+   public int size()
+   {
+      return entries.size();
+   }
+
+   /**
+    * Get the cached {@link Locale} instances, least recently used first.
+    */
+   public List<Locale> getLocales()
+   {
+      List<Map.Entry<Locale, Entry>> snapshot = new ArrayList<>(entries.entrySet());
+      snapshot.sort(Comparator.comparingLong(e -> e.getValue().stamp));
+
+      List<Locale> result = new ArrayList<>(snapshot.size());
+      for (Map.Entry<Locale, Entry> e : snapshot) {
+         result.add(e.getKey());
+      }
+      return result;
+   }
+
+   public long getHits()
+   {
+      return hits.sum();
+   }
+
+   public long getMisses()
+   {
+      return misses.sum();
+   }
+
+   public long getEvictions()
+   {
+      return evictions.sum();
+   }
+
+   /**
+    * Reset the hit, miss and eviction counters.
+    */
+   public void resetStatistics()
+   {
+      hits.reset();
+      misses.reset();
+      evictions.reset();
+   }
+
+   @Override
+   public String toString()
+   {
+      return "PrettyTimeCache [name=" + name + ", size=" + size() + ", maxSize=" + getMaxSize() + "]";
+   }
+
+   private Entry load(final Locale locale)
+   {
+      misses.increment();
+      return new Entry(factory.apply(locale), advance());
+   }
+
+   /**
+    * Stamp a new entry and move the clock past it, so that later hits rank above it.
+    */
+   private long advance()
+   {
+      long stamp = clock.incrementAndGet();
+      clock.incrementAndGet();
+      return stamp;
+   }
+
+   /**
+    * Remove the entries with the oldest stamps until the cache fits. Concurrent evictions may race for the same entry,
+    * in which case only one of them removes it.
+    */
+   private void evict()
+   {
+      while (entries.size() > maxSize) {
+         Map.Entry<Locale, Entry> oldest = null;
+         for (Map.Entry<Locale, Entry> e : entries.entrySet()) {
+            if (oldest == null || e.getValue().stamp < oldest.getValue().stamp)
+               oldest = e;
+         }
+         if (oldest == null)
+            return;
+         if (entries.remove(oldest.getKey(), oldest.getValue()))
+            evictions.increment();
+      }
+   }
+
+   private static int checkSize(final int maxSize)
+   {
+      if (maxSize < 1)
+         throw new IllegalArgumentException("Cache size must be at least 1.");
+      return maxSize;
+   }
+
+   private static final class Entry
+   {
+      private final PrettyTime prettyTime;
+      private volatile long stamp;
+
+      private Entry(final PrettyTime prettyTime, final long stamp)
+      {
+         this.prettyTime = prettyTime;
+         this.stamp = stamp;
+      }
+
+      /**
+       * Only write the stamp when it is stale, so that repeated hits on a hot entry stay read-only.
+       */
+      private void touch(final long now)
+      {
+         if (stamp < now)
+            stamp = now;
+      }
+   }
+}
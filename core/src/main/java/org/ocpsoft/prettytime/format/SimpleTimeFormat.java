@@ -123,6 +123,64 @@ public class SimpleTimeFormat implements TimeFormat, LocaleAware<SimpleTimeForma
       return pattern;
    }
 
+   /**
+    * The percentage of the current {@link TimeUnit}.getMillisPerUnit() for which the quantity may be rounded up by one.
+    */
+   public int getRoundingTolerance()
+   {
+      return roundingTolerance;
+   }
+
+   public String getFuturePrefix()
+   {
+      return futurePrefix;
+   }
+
+   public String getFutureSuffix()
+   {
+      return futureSuffix;
+   }
+
+   public String getPastPrefix()
+   {
+      return pastPrefix;
+   }
+
+   public String getPastSuffix()
+   {
+      return pastSuffix;
+   }
+
+   public String getSingularName()
+   {
+      return singularName;
+   }
+
+   public String getPluralName()
+   {
+      return pluralName;
+   }
+
+   public String getFutureSingularName()
+   {
+      return futureSingularName;
+   }
+
+   public String getFuturePluralName()
+   {
+      return futurePluralName;
+   }
+
+   public String getPastSingularName()
+   {
+      return pastSingularName;
+   }
+
+   public String getPastPluralName()
+   {
+      return pastPluralName;
+   }
+
    protected long getQuantity(Duration duration, boolean round)
    {
       return Math.abs(round ? duration.getQuantityRounded(roundingTolerance) : duration.getQuantity());
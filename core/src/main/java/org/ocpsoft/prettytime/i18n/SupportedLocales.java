@@ -0,0 +1,172 @@
+/*
+ * Copyright 2012 <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ocpsoft.prettytime.i18n;
+
+import java.net.URL;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index of the {@link Locale} instances for which a <code>Resources_*</code> bundle is shipped, and a bounded cache
+ * mapping any requested {@link Locale} to the {@link Locale} of the bundle that
+ * {@link ResourceBundle#getBundle(String, Locale)} would select for it. Resolving first means the bundle lookup starts
+ * at a bundle that exists, instead of probing the class loader for every missing candidate of each distinct requested
+ * {@link Locale}.
+ * <p>
+ * Candidates that are not shipped, such as bundles added to the <code>org.ocpsoft.prettytime.i18n</code> package by an
+ * application, are looked up on the class path once and remembered. Requested {@link Locale} instances without any
+ * match resolve like {@link ResourceBundle} does: to the match of {@link Locale#getDefault()}, or to
+ * {@link Locale#ROOT} for the base bundle.
+ *
+ * @author <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ */
+public final class SupportedLocales
+{
+   /**
+    * The base name of the bundled resources.
+    */
+   public static final String BUNDLE = "org.ocpsoft.prettytime.i18n.Resources";
+
+   private static final int MAX_CACHE_SIZE = 1000;
+
+   private static final String[] BUNDLED = { "ar", "az", "be", "bg", "bn", "ca", "cs", "da", "de", "el", "en", "eo",
+            "es", "et", "fa", "fi", "fr", "gl", "he", "hi", "hr", "hu", "in", "it", "iw", "ja", "kk", "km", "ko", "mm",
+            "ms", "nl", "no", "pa", "pl", "pt", "ro", "ru", "sk", "sl", "so", "sq", "sr_Latn", "sv", "th", "tk_TM",
+            "tr", "uk", "ur", "uy", "vi", "zh", "zh_HK", "zh_TW" };
+
+   private static final Set<Locale> LOCALES;
+   private static final ConcurrentHashMap<Locale, Locale> RESOLVED = new ConcurrentHashMap<>();
+   private static final ConcurrentHashMap<Locale, Boolean> PROBED = new ConcurrentHashMap<>();
+   private static final ResourceBundle.Control CONTROL = ResourceBundle.Control
+            .getControl(ResourceBundle.Control.FORMAT_DEFAULT);
+
+   static {
+      Set<Locale> locales = new LinkedHashSet<>();
+      for (String suffix : BUNDLED) {
+         locales.add(toLocale(suffix));
+      }
+      LOCALES = Collections.unmodifiableSet(locales);
+   }
+
+   private SupportedLocales()
+   {
+   }
+
+   /**
+    * Return the {@link Locale} instances of the bundled resources, excluding the base bundle.
+    */
+   public static Set<Locale> getLocales()
+   {
+      return LOCALES;
+   }
+
+   /**
+    * Return <code>true</code> if a bundle is shipped for exactly the given {@link Locale}, ignoring extensions.
+    */
+   public static boolean isSupported(final Locale locale)
+   {
+      return locale != null && LOCALES.contains(locale.stripExtensions());
+   }
+
+   /**
+    * Return the bundled {@link Locale} whose resources would be used for the given {@link Locale}, see
+    * {@link SupportedLocales}. A <code>null</code> {@link Locale} is treated as {@link Locale#getDefault()}.
+    */
+   public static Locale resolve(final Locale locale)
+   {
+      Locale requested = locale != null ? locale : Locale.getDefault();
+      Locale result = match(requested);
+      if (Locale.ROOT.equals(result) && !requested.equals(Locale.getDefault())) {
+         result = match(Locale.getDefault());
+      }
+      return result;
+   }
+
+   /**
+    * The first bundled candidate of the given {@link Locale}, in {@link ResourceBundle} lookup order, or
+    * {@link Locale#ROOT} if there is none.
+    */
+   private static Locale match(final Locale locale)
+   {
+      Locale result = RESOLVED.get(locale);
+      if (result == null) {
+         result = Locale.ROOT;
+         for (Locale candidate : CONTROL.getCandidateLocales(BUNDLE, locale.stripExtensions())) {
+            if (exists(candidate)) {
+               result = candidate;
+               break;
+            }
+         }
+         put(RESOLVED, locale, result);
+      }
+      return result;
+   }
+
+   private static boolean exists(final Locale candidate)
+   {
+      if (LOCALES.contains(candidate))
+         return true;
+      if (Locale.ROOT.equals(candidate))
+         return false;
+
+      Boolean result = PROBED.get(candidate);
+      if (result == null) {
+         result = probe(candidate);
+         put(PROBED, candidate, result);
+      }
+      return result;
+   }
+
+   /**
+    * Look for a bundle that is not shipped, the same way {@link ResourceBundle.Control#newBundle} does.
+    */
+   private static boolean probe(final Locale candidate)
+   {
+      String name = CONTROL.toBundleName(BUNDLE, candidate);
+      ClassLoader loader = SupportedLocales.class.getClassLoader();
+      try {
+         Class.forName(name, false, loader);
+         return true;
+      }
+      catch (ClassNotFoundException | LinkageError e) {
+         URL resource = loader != null ? loader.getResource(CONTROL.toResourceName(name, "properties"))
+                  : ClassLoader.getSystemResource(CONTROL.toResourceName(name, "properties"));
+         return resource != null;
+      }
+   }
+
+   private static <V> void put(final ConcurrentHashMap<Locale, V> cache, final Locale key, final V value)
+   {
+      if (cache.size() >= MAX_CACHE_SIZE) {
+         cache.clear();
+      }
+      cache.put(key, value);
+   }
+
+   private static Locale toLocale(final String suffix)
+   {
+      String[] parts = suffix.split("_");
+      if (parts.length == 1)
+         return new Locale(parts[0]);
+      if (parts[1].length() == 4)
+         return new Locale.Builder().setLanguage(parts[0]).setScript(parts[1]).build();
+      return new Locale(parts[0], parts[1]);
+   }
+}
@@ -6,6 +6,9 @@ import java.util.ResourceBundle;
 import org.ocpsoft.prettytime.Duration;
 import org.ocpsoft.prettytime.TimeFormat;
 import org.ocpsoft.prettytime.format.SimpleTimeFormat;
+import org.ocpsoft.prettytime.i18n.SupportedLocales;
+import org.ocpsoft.prettytime.metrics.Metrics;
+import org.ocpsoft.prettytime.metrics.PrettyTimeMetrics.Span;
 
 /**
  * Represents a simple method of formatting a specific {@link Duration} of time
@@ -32,6 +35,7 @@ public class ResourcesTimeFormat extends SimpleTimeFormat
    @Override
    public ResourcesTimeFormat setLocale(Locale locale)
    {
+      final long start = Metrics.timestamp(Span.BUNDLE_LOAD);
       ResourceBundle bundle = null;
       if (overrideResourceBundle != null) {
          try {
@@ -45,11 +49,14 @@ public class ResourcesTimeFormat extends SimpleTimeFormat
 
       // If the bundle doesn't exist then load the default included one
       if (bundle == null) {
-         bundle = ResourceBundle.getBundle(unit.getResourceBundleName(), locale);
+         bundle = ResourceBundle.getBundle(unit.getResourceBundleName(), SupportedLocales.resolve(locale));
       }
+      Metrics.bundleLoaded(locale, bundle.getBaseBundleName(), unit, start);
 
       if (bundle instanceof TimeFormatProvider) {
+         final long provided = Metrics.timestamp(Span.FORMAT_PROVIDED);
          TimeFormat format = ((TimeFormatProvider) bundle).getFormatFor(unit);
+         Metrics.formatProvided(locale, unit, provided);
          if (format != null) {
             this.override = format;
          }
@@ -94,6 +101,33 @@ public class ResourcesTimeFormat extends SimpleTimeFormat
       return this;
    }
 
+   /**
+    * Return a new {@link ResourcesTimeFormat} for the same {@link ResourcesTimeUnit} and override bundle, set to the
+    * given {@link Locale} as if this instance had been passed to {@link #setLocale(Locale)}: the rounding tolerance is
+    * kept, as are the optional future and past names the bundle does not define, while the pattern, prefixes, suffixes
+    * and names the bundle defines are reloaded from it, replacing any customized ones. This instance is not changed.
+    */
+   public ResourcesTimeFormat withLocale(Locale locale)
+   {
+      ResourcesTimeFormat result = new ResourcesTimeFormat(unit, overrideResourceBundle);
+      result.override = override;
+      result.setRoundingTolerance(getRoundingTolerance());
+      result.setFutureSingularName(getFutureSingularName());
+      result.setFuturePluralName(getFuturePluralName());
+      result.setPastSingularName(getPastSingularName());
+      result.setPastPluralName(getPastPluralName());
+      return result.setLocale(locale);
+   }
+
+   /**
+    * Return the {@link TimeFormat} supplied by a {@link TimeFormatProvider} bundle for the current {@link Locale}, or
+    * <code>null</code> if this format uses the phrases of the bundle.
+    */
+   public TimeFormat getOverride()
+   {
+      return override;
+   }
+
    @Override
    public String decorate(Duration duration, String time)
    {
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2012 <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ocpsoft.prettytime.impl;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Converts {@link LocalDateTime} and {@link LocalDate} values in a single {@link ZoneId} to epoch milliseconds, using
+ * the offset transitions of a range of local times that are looked up once. Within the range a conversion is a binary
+ * search over the transitions and an offset subtraction; values outside of it are converted through
+ * {@link LocalDateTime#atZone(ZoneId)}.
+ * <p>
+ * Results are identical to {@link LocalDateTime#atZone(ZoneId)} and {@link LocalDate#atStartOfDay(ZoneId)}: local
+ * times in a gap are moved forward by the length of the gap, and local times in an overlap use the earlier offset.
+ * Instances are immutable and thread-safe.
+ *
+ * @author <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ */
+public final class ZoneOffsetTable
+{
+   private static final long MAX_OFFSET_SECONDS = 18 * 60 * 60;
+
+   private final ZoneId zoneId;
+   private final long from;
+   private final long to;
+
+   /*
+    * Local epoch seconds at which each transition takes effect, and the offset in seconds before the first and after
+    * each of them.
+    */
+   private final long[] boundaries;
+   private final int[] offsets;
+
+   private ZoneOffsetTable(final ZoneId zoneId, final long from, final long to, final long[] boundaries,
+            final int[] offsets)
+   {
+      this.zoneId = zoneId;
+      this.from = from;
+      this.to = to;
+      this.boundaries = boundaries;
+      this.offsets = offsets;
+   }
+
+   /**
+    * Create a {@link ZoneOffsetTable} for the given {@link ZoneId} covering all local times from <code>first</code> to
+    * <code>last</code>, inclusive.
+    */
+   public static ZoneOffsetTable of(final ZoneId zoneId, final LocalDateTime first, final LocalDateTime last)
+   {
+      Objects.requireNonNull(zoneId, "ZoneId must not be null.");
+      Objects.requireNonNull(first, "First LocalDateTime must not be null.");
+      Objects.requireNonNull(last, "Last LocalDateTime must not be null.");
+      return of(zoneId, first.toEpochSecond(ZoneOffset.UTC), last.toEpochSecond(ZoneOffset.UTC));
+   }
+
+   /**
+    * Create a {@link ZoneOffsetTable} for the given {@link ZoneId} covering the starts of all days from
+    * <code>first</code> to <code>last</code>, inclusive.
+    */
+   public static ZoneOffsetTable of(final ZoneId zoneId, final LocalDate first, final LocalDate last)
+   {
+      Objects.requireNonNull(first, "First LocalDate must not be null.");
+      Objects.requireNonNull(last, "Last LocalDate must not be null.");
+      return of(zoneId, first.atStartOfDay(), last.atStartOfDay());
+   }
+
+   private static ZoneOffsetTable of(final ZoneId zoneId, final long from, final long to)
+   {
+      ZoneRules rules = zoneId.getRules();
+      if (rules.isFixedOffset()) {
+         int offset = rules.getOffset(Instant.EPOCH).getTotalSeconds();
+         return new ZoneOffsetTable(zoneId, Long.MIN_VALUE, Long.MAX_VALUE, new long[0], new int[] { offset });
+      }
+      if (from > to)
+         throw new IllegalArgumentException("Range must not end before it starts: " + from + " > " + to);
+
+      Instant start = Instant.ofEpochSecond(from - MAX_OFFSET_SECONDS);
+      long end = to + MAX_OFFSET_SECONDS;
+
+      long[] boundaries = new long[8];
+      int[] offsets = new int[9];
+      offsets[0] = rules.getOffset(start).getTotalSeconds();
+      int count = 0;
+      ZoneOffsetTransition transition = rules.nextTransition(start);
+      while (transition != null && transition.toEpochSecond() <= end) {
+         if (count == boundaries.length) {
+            boundaries = Arrays.copyOf(boundaries, count * 2);
+            offsets = Arrays.copyOf(offsets, count * 2 + 1);
+         }
+         int before = transition.getOffsetBefore().getTotalSeconds();
+         int after = transition.getOffsetAfter().getTotalSeconds();
+         // Before the later of both local representations of the transition, the earlier offset applies.
+         boundaries[count] = transition.toEpochSecond() + Math.max(before, after);
+         offsets[++count] = after;
+         transition = rules.nextTransition(transition.getInstant());
+      }
+      return new ZoneOffsetTable(zoneId, from, to, Arrays.copyOf(boundaries, count),
+               Arrays.copyOf(offsets, count + 1));
+   }
+
+   /**
+    * Return the {@link ZoneId} of this table.
+    */
+   public ZoneId getZoneId()
+   {
+      return zoneId;
+   }
+
+   /**
+    * Convert the given {@link LocalDateTime} to epoch milliseconds, as
+    * <code>value.atZone(getZoneId()).toInstant().toEpochMilli()</code> would.
+    */
+   public long toEpochMilli(final LocalDateTime value)
+   {
+      long local = value.toEpochSecond(ZoneOffset.UTC);
+      if (local < from || local > to)
+         return value.atZone(zoneId).toInstant().toEpochMilli();
+      return (local - offsets[getIndex(local)]) * 1000 + value.getNano() / 1000000;
+   }
+
+   /**
+    * Convert the start of the given {@link LocalDate} to epoch milliseconds, as
+    * <code>value.atStartOfDay(getZoneId()).toInstant().toEpochMilli()</code> would.
+    */
+   public long toEpochMilli(final LocalDate value)
+   {
+      long local = value.toEpochDay() * 24 * 60 * 60;
+      if (local < from || local > to)
+         return value.atStartOfDay(zoneId).toInstant().toEpochMilli();
+
+      int index = getIndex(local);
+      if (index < boundaries.length && offsets[index + 1] > offsets[index]
+               && local >= boundaries[index] - offsets[index + 1] + offsets[index]) {
+         // Midnight falls into a gap, so the day starts at the transition itself.
+         return (boundaries[index] - offsets[index + 1]) * 1000;
+      }
+      return (local - offsets[index]) * 1000;
+   }
+
+   /**
+    * Return the index of the offset in effect at the given local epoch second.
+    */
+   private int getIndex(final long local)
+   {
+      int index = Arrays.binarySearch(boundaries, local);
+      return index >= 0 ? index + 1 : -index - 1;
+   }
+
+   @Override
+   public String toString()
+   {
+      return "ZoneOffsetTable [zoneId=" + zoneId + ", transitions=" + boundaries.length + "]";
+   }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2012 <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ocpsoft.prettytime.management;
+
+import org.ocpsoft.prettytime.cache.PrettyTimeCache;
+
+/**
+ * Management interface of a {@link PrettyTimeCache}. Locales are given and returned as IETF BCP 47 language tags.
+ * 
+ * @author <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ */
+public interface PrettyTimeCacheMXBean
+{
+   String getName();
+
+   int getSize();
+
+   int getMaxSize();
+
+   long getHits();
+
+   long getMisses();
+
+   /**
+    * The fraction of lookups that were hits, or <code>0</code> if there were no lookups yet.
+    */
+   double getHitRatio();
+
+   long getEvictions();
+
+   /**
+    * The cached locales, least recently used first.
+    */
+   String[] getLoadedLocales();
+
+   /**
+    * Remove the entry for the given language tag. Return <code>true</code> if there was one.
+    */
+   boolean clearLocale(String languageTag);
+
+   /**
+    * Remove all entries.
+    */
+   void clear();
+
+   /**
+    * Change the maximum number of entries, evicting the least recently used entries if necessary.
+    */
+   void resize(int maxSize);
+
+   /**
+    * Create entries for the given comma separated language tags.
+    */
+   void preload(String languageTags);
+
+   /**
+    * Reset the hit, miss and eviction counters.
+    */
+   void resetStatistics();
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2012 <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ocpsoft.prettytime.management;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.ocpsoft.prettytime.cache.PrettyTimeCache;
+
+/**
+ * Exposes {@link PrettyTimeCache} instances through JMX, under
+ * <code>org.ocpsoft.prettytime:type=PrettyTimeCache,name=&lt;cache name&gt;</code> in the platform
+ * {@link MBeanServer}.
+ * <p>
+ * This class is only loaded when called, so PrettyTime keeps working on platforms without <code>javax.management</code>
+ * (such as Android).
+ * 
+ * @author <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ */
+public final class PrettyTimeManagement
+{
+   public static final String DOMAIN = "org.ocpsoft.prettytime";
+
+   private PrettyTimeManagement()
+   {
+   }
+
+   /**
+    * Return the {@link ObjectName} under which the given {@link PrettyTimeCache} is registered.
+    */
+   public static ObjectName getObjectName(final PrettyTimeCache cache) throws JMException
+   {
+      return new ObjectName(DOMAIN + ":type=PrettyTimeCache,name=" + ObjectName.quote(cache.getName()));
+   }
+
+   /**
+    * Register the given {@link PrettyTimeCache} with the platform {@link MBeanServer}, replacing any cache registered
+    * under the same name.
+    */
+   public static void register(final PrettyTimeCache cache) throws JMException
+   {
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      ObjectName name = getObjectName(cache);
+      if (server.isRegistered(name))
+         server.unregisterMBean(name);
+      server.registerMBean(new CacheManagement(cache), name);
+   }
+
+   /**
+    * Remove the given {@link PrettyTimeCache} from the platform {@link MBeanServer}, if registered.
+    */
+   public static void unregister(final PrettyTimeCache cache) throws JMException
+   {
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      ObjectName name = getObjectName(cache);
+      if (server.isRegistered(name))
+         server.unregisterMBean(name);
+   }
+
+   /**
+    * Like {@link #register(PrettyTimeCache)}, but never fails. Return <code>true</code> if the cache was registered.
+    * Intended for integrations that register their caches automatically.
+    */
+   public static boolean registerQuietly(final PrettyTimeCache cache)
+   {
+      try {
+         register(cache);
+         return true;
+      }
+      catch (Exception | LinkageError e) {
+         // JMX is unavailable or not permitted; the cache works without it
+         return false;
+      }
+   }
+
+   private static class CacheManagement implements PrettyTimeCacheMXBean
+   {
+      private final PrettyTimeCache cache;
+
+      CacheManagement(PrettyTimeCache cache)
+      {
+         this.cache = cache;
+      }
+
+      @Override
+      public String getName()
+      {
+         return cache.getName();
+      }
+
+      @Override
+      public int getSize()
+      {
+         return cache.size();
+      }
+
+      @Override
+      public int getMaxSize()
+      {
+         return cache.getMaxSize();
+      }
+
+      @Override
+      public long getHits()
+      {
+         return cache.getHits();
+      }
+
+      @Override
+      public long getMisses()
+      {
+         return cache.getMisses();
+      }
+
+      @Override
+      public double getHitRatio()
+      {
+         long hits = cache.getHits();
+         long lookups = hits + cache.getMisses();
+         return lookups == 0 ? 0 : (double) hits / lookups;
+      }
+
+      @Override
+      public long getEvictions()
+      {
+         return cache.getEvictions();
+      }
+
+      @Override
+      public String[] getLoadedLocales()
+      {
+         List<Locale> locales = cache.getLocales();
+         String[] result = new String[locales.size()];
+         for (int i = 0; i < result.length; i++) {
+            result[i] = locales.get(i).toLanguageTag();
+         }
+         return result;
+      }
+
+      @Override
+      public boolean clearLocale(String languageTag)
+      {
+         return cache.clear(Locale.forLanguageTag(languageTag));
+      }
+
+      @Override
+      public void clear()
+      {
+         cache.clear();
+      }
+
+      @Override
+      public void resize(int maxSize)
+      {
+         cache.setMaxSize(maxSize);
+      }
+
+      @Override
+      public void preload(String languageTags)
+      {
+         List<Locale> locales = new ArrayList<>();
+         for (String tag : languageTags.split(",")) {
+            if (!tag.trim().isEmpty())
+               locales.add(Locale.forLanguageTag(tag.trim()));
+         }
+         cache.preload(locales);
+      }
+
+      @Override
+      public void resetStatistics()
+      {
+         cache.resetStatistics();
+      }
+   }
+}
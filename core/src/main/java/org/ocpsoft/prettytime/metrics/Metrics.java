@@ -0,0 +1,225 @@
+/*
+ * Copyright 2012 <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ocpsoft.prettytime.metrics;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.ocpsoft.prettytime.TimeUnit;
+import org.ocpsoft.prettytime.metrics.PrettyTimeMetrics.Operation;
+import org.ocpsoft.prettytime.metrics.PrettyTimeMetrics.Span;
+
+/**
+ * Holds the process-wide {@link PrettyTimeMetrics} instance. Until one is registered, instrumentation costs a single
+ * volatile read per call.
+ * 
+ * @author <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ */
+public final class Metrics
+{
+   /**
+    * Returned by {@link #start()} when the current call is not sampled for latency.
+    */
+   public static final long NOT_SAMPLED = Long.MIN_VALUE;
+
+   private static final String FLIGHT_RECORDER_METRICS = "org.ocpsoft.prettytime.metrics.jfr.JfrMetrics";
+
+   private static final PrettyTimeMetrics NONE = new PrettyTimeMetrics() {};
+
+   private static volatile PrettyTimeMetrics metrics = NONE;
+   private static volatile int sampleInterval = 0;
+
+   private Metrics()
+   {
+   }
+
+   /**
+    * Register the given {@link PrettyTimeMetrics}, replacing any previously registered instance. Latency is not
+    * sampled.
+    */
+   public static void register(PrettyTimeMetrics metrics)
+   {
+      register(metrics, 0);
+   }
+
+   /**
+    * Register the given {@link PrettyTimeMetrics}, replacing any previously registered instance. On average one in
+    * every <code>sampleInterval</code> calls is timed and reported to
+    * {@link PrettyTimeMetrics#latency(Operation, Locale, TimeUnit, long)}; <code>1</code> times every call and <code>0</code>
+    * disables latency sampling.
+    */
+   public static void register(PrettyTimeMetrics metrics, int sampleInterval)
+   {
+      if (sampleInterval < 0)
+         throw new IllegalArgumentException("Sample interval must not be negative.");
+      Metrics.sampleInterval = sampleInterval;
+      Metrics.metrics = Objects.requireNonNull(metrics, "PrettyTimeMetrics to register must not be null.");
+   }
+
+   /**
+    * Register the JDK Flight Recorder events of the optional <code>prettytime-jfr</code> module, reporting format calls
+    * that take at least the given number of nanoseconds, if that module and the <code>jdk.jfr</code> API are available.
+    * The {@link PrettyTimeMetrics} registered before keeps receiving its events. The module needs Java 11 or later and
+    * is loaded reflectively, so this method can be called on any JVM.
+    *
+    * @return <code>true</code> if the events were registered
+    */
+   public static boolean registerFlightRecorder(long slowFormatNanos)
+   {
+      try {
+         Class<?> type = Class.forName(FLIGHT_RECORDER_METRICS, true, Metrics.class.getClassLoader());
+         if (!(Boolean) type.getMethod("isAvailable").invoke(null))
+            return false;
+         type.getMethod("register", long.class).invoke(null, slowFormatNanos);
+         return true;
+      }
+      catch (ClassNotFoundException | LinkageError | NoSuchMethodException | IllegalAccessException e) {
+         return false;
+      }
+      catch (InvocationTargetException e) {
+         if (e.getCause() instanceof RuntimeException)
+            throw (RuntimeException) e.getCause();
+         if (e.getCause() instanceof LinkageError)
+            return false;
+         throw new IllegalStateException(e.getCause());
+      }
+   }
+
+   /**
+    * Remove the registered {@link PrettyTimeMetrics}, if any.
+    */
+   public static void reset()
+   {
+      metrics = NONE;
+      sampleInterval = 0;
+   }
+
+   /**
+    * Return the registered {@link PrettyTimeMetrics}, or <code>null</code> if there is none.
+    */
+   public static PrettyTimeMetrics getRegistered()
+   {
+      PrettyTimeMetrics current = metrics;
+      return current == NONE ? null : current;
+   }
+
+   /**
+    * Return the latency sample interval the registered {@link PrettyTimeMetrics} was registered with, see
+    * {@link #register(PrettyTimeMetrics, int)}.
+    */
+   public static int getSampleInterval()
+   {
+      return sampleInterval;
+   }
+
+   /**
+    * Return <code>true</code> if a {@link PrettyTimeMetrics} is registered.
+    */
+   public static boolean isEnabled()
+   {
+      return metrics != NONE;
+   }
+
+   /**
+    * Return the current value of {@link System#nanoTime()} if this call should be timed, or {@link #NOT_SAMPLED}. The
+    * registered instance is told when a timed {@link Span#CALL} {@link PrettyTimeMetrics#started(Span) started}.
+    */
+   public static long start()
+   {
+      PrettyTimeMetrics current = metrics;
+      if (current == NONE)
+         return NOT_SAMPLED;
+
+      int interval = sampleInterval;
+      if (interval == 0 || (interval > 1 && ThreadLocalRandom.current().nextInt(interval) != 0))
+         return NOT_SAMPLED;
+      current.started(Span.CALL);
+      return System.nanoTime();
+   }
+
+   /**
+    * Return the current value of {@link System#nanoTime()} if a {@link PrettyTimeMetrics} is registered, or
+    * {@link #NOT_SAMPLED}, as the <code>start</code> of a bundle load, format provider lookup or locale change. The
+    * registered instance is told that the {@link Span} {@link PrettyTimeMetrics#started(Span) started}.
+    */
+   public static long timestamp(Span span)
+   {
+      PrettyTimeMetrics current = metrics;
+      if (current == NONE)
+         return NOT_SAMPLED;
+      current.started(span);
+      return System.nanoTime();
+   }
+
+   /**
+    * Report a completed call of the given {@link Operation}. The <code>start</code> value must come from
+    * {@link #start()}.
+    */
+   public static void called(Operation operation, Locale locale, TimeUnit unit, long start)
+   {
+      PrettyTimeMetrics current = metrics;
+      if (current == NONE)
+         return;
+
+      current.called(operation, locale, unit);
+      if (start != NOT_SAMPLED)
+         current.latency(operation, locale, unit, System.nanoTime() - start);
+   }
+
+   /**
+    * Report a resource bundle resolution that started at the given {@link #timestamp(Span)}.
+    */
+   public static void bundleLoaded(Locale locale, String baseName, TimeUnit unit, long start)
+   {
+      PrettyTimeMetrics current = metrics;
+      if (current != NONE && start != NOT_SAMPLED)
+         current.bundleLoaded(locale, baseName, unit, System.nanoTime() - start);
+   }
+
+   /**
+    * Report a {@link org.ocpsoft.prettytime.impl.TimeFormatProvider} lookup that started at the given
+    * {@link #timestamp(Span)}.
+    */
+   public static void formatProvided(Locale locale, TimeUnit unit, long start)
+   {
+      PrettyTimeMetrics current = metrics;
+      if (current != NONE && start != NOT_SAMPLED)
+         current.formatProvided(locale, unit, System.nanoTime() - start);
+   }
+
+   /**
+    * Report a {@link org.ocpsoft.prettytime.PrettyTime#setLocale(Locale)} call that started at the given
+    * {@link #timestamp(Span)}.
+    */
+   public static void localeChanged(Locale locale, long start)
+   {
+      PrettyTimeMetrics current = metrics;
+      if (current != NONE && start != NOT_SAMPLED)
+         current.localeChanged(locale, System.nanoTime() - start);
+   }
+
+   /**
+    * Report a hit on the name matching fallback of {@link org.ocpsoft.prettytime.PrettyTime#getFormat(TimeUnit)}.
+    */
+   public static void formatFallback(TimeUnit unit)
+   {
+      PrettyTimeMetrics current = metrics;
+      if (current != NONE)
+         current.formatFallback(unit);
+   }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2012 <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ocpsoft.prettytime.metrics;
+
+import java.util.Locale;
+
+import org.ocpsoft.prettytime.PrettyTime;
+import org.ocpsoft.prettytime.TimeFormat;
+import org.ocpsoft.prettytime.TimeUnit;
+import org.ocpsoft.prettytime.impl.ResourcesTimeFormat;
+
+/**
+ * Receives instrumentation events from {@link PrettyTime} and the bundled {@link TimeFormat} implementations. Register
+ * an implementation with {@link Metrics#register(PrettyTimeMetrics, int)}. Every method is a no-op by default, so
+ * implementations only override the events they care about.
+ * <p>
+ * Implementations are called on the formatting thread and must be thread-safe and fast.
+ * 
+ * @author <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ */
+public interface PrettyTimeMetrics
+{
+   /**
+    * The {@link PrettyTime} API family through which a call was made.
+    */
+   enum Operation
+   {
+      /**
+       * {@link PrettyTime#format(org.ocpsoft.prettytime.Duration)} and its overloads.
+       */
+      FORMAT,
+      /**
+       * {@link PrettyTime#formatUnrounded(org.ocpsoft.prettytime.Duration)} and its overloads.
+       */
+      FORMAT_UNROUNDED,
+      /**
+       * {@link PrettyTime#formatDuration(org.ocpsoft.prettytime.Duration)} and its overloads.
+       */
+      FORMAT_DURATION,
+      /**
+       * {@link PrettyTime#formatDurationUnrounded(org.ocpsoft.prettytime.Duration)} and its overloads.
+       */
+      FORMAT_DURATION_UNROUNDED,
+      /**
+       * {@link PrettyTime#calculatePreciseDuration(java.time.Instant)} and its overloads.
+       */
+      PRECISE_DURATION
+   }
+
+   /**
+    * What a timed span measures, see {@link #started(Span)}.
+    */
+   enum Span
+   {
+      /**
+       * A call sampled for {@link PrettyTimeMetrics#latency(Operation, Locale, TimeUnit, long)}.
+       */
+      CALL,
+      /**
+       * A resolution reported to {@link PrettyTimeMetrics#bundleLoaded(Locale, String, TimeUnit, long)}.
+       */
+      BUNDLE_LOAD,
+      /**
+       * A construction reported to {@link PrettyTimeMetrics#formatProvided(Locale, TimeUnit, long)}.
+       */
+      FORMAT_PROVIDED,
+      /**
+       * A re-localization reported to {@link PrettyTimeMetrics#localeChanged(Locale, long)}.
+       */
+      LOCALE_CHANGE
+   }
+
+   /**
+    * Called on the current thread when a span of the given kind starts, before it is reported with its duration to the
+    * callback the {@link Span} names, normally on the same thread. Spans nest, and a span whose work throws is not
+    * reported. Implementations that time spans themselves, such as JDK Flight Recorder events, start timing here.
+    */
+   default void started(Span span)
+   {
+   }
+
+   /**
+    * Called once per call of the given {@link Operation} on a {@link PrettyTime} configured with the given
+    * {@link Locale}. The {@link TimeUnit} is the unit selected for the result, or the smallest unit when a precise
+    * {@link java.util.List} of durations was calculated or formatted.
+    */
+   default void called(Operation operation, Locale locale, TimeUnit unit)
+   {
+   }
+
+   /**
+    * Called for a sample of the calls reported to {@link #called(Operation, Locale, TimeUnit)}, with the time the call
+    * took in nanoseconds. The sampling interval is given to {@link Metrics#register(PrettyTimeMetrics, int)}.
+    */
+   default void latency(Operation operation, Locale locale, TimeUnit unit, long nanos)
+   {
+   }
+
+   /**
+    * Called each time a {@link ResourcesTimeFormat} resolved the resource bundle for its {@link TimeUnit} and the given
+    * {@link Locale}, with the time the resolution took in nanoseconds.
+    */
+   default void bundleLoaded(Locale locale, String baseName, TimeUnit unit, long nanos)
+   {
+   }
+
+   /**
+    * Called each time a {@link org.ocpsoft.prettytime.impl.TimeFormatProvider} bundle constructed the
+    * {@link TimeFormat} for the given {@link TimeUnit} and {@link Locale}, with the time that took in nanoseconds.
+    */
+   default void formatProvided(Locale locale, TimeUnit unit, long nanos)
+   {
+   }
+
+   /**
+    * Called each time {@link PrettyTime#setLocale(Locale)} re-localized all registered units, with the time that took
+    * in nanoseconds.
+    */
+   default void localeChanged(Locale locale, long nanos)
+   {
+   }
+
+   /**
+    * Called when {@link PrettyTime#getFormat(TimeUnit)} did not find the given {@link TimeUnit} directly and had to
+    * fall back to matching registered units by name.
+    */
+   default void formatFallback(TimeUnit unit)
+   {
+   }
+}
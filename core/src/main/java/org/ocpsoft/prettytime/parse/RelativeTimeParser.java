@@ -0,0 +1,317 @@
+/*
+ * Copyright 2012 <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ocpsoft.prettytime.parse;
+
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+import org.ocpsoft.prettytime.Duration;
+import org.ocpsoft.prettytime.PrettyTime;
+import org.ocpsoft.prettytime.TimeFormat;
+import org.ocpsoft.prettytime.TimeUnit;
+import org.ocpsoft.prettytime.impl.DurationImpl;
+
+/**
+ * Parses text formatted by {@link PrettyTime#format(Duration)}, such as "3 days ago", "vor 3 Tagen" or "3日前", back
+ * into the {@link Duration} it was formatted from, in any number of locales at once.
+ * <p>
+ * The phrases are compiled once, by formatting every {@link TimeUnit} of each {@link PrettyTime} in both directions
+ * with quantities up to {@value #SAMPLE_QUANTITIES}. This covers the plural and case forms of every
+ * {@link TimeFormat}, including those supplied by a {@link org.ocpsoft.prettytime.impl.TimeFormatProvider}. Each
+ * formatted phrase is added to a character trie with its number replaced by a placeholder that matches any run of
+ * digits, so parsing takes time linear in the length of the text regardless of the number of phrases and locales.
+ * Matching ignores case and collapses whitespace.
+ * <p>
+ * Phrases formatted for several units or locales, or in both directions, parse as the first of them, with units in
+ * the order of {@link PrettyTime#getUnits()}. Quantities shown in a larger unit, such as the years of a decade in
+ * Japanese, parse as the unit that formats them directly where there is one. Output of
+ * {@link PrettyTime#format(List)}, which combines several units, is not recognized. Instances are immutable and
+ * thread-safe.
+ *
+ * @author <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ */
+public final class RelativeTimeParser
+{
+   /**
+    * The number of quantities formatted per unit and direction, enough for the plural rules of all bundled locales.
+    */
+   public static final int SAMPLE_QUANTITIES = 120;
+
+   private static final char SPACE = ' ';
+   private static final int MAX_DIGITS = 18;
+
+   private final List<Locale> locales = new ArrayList<>();
+   private final Node root = new Node();
+
+   /**
+    * Create a {@link RelativeTimeParser} for the default units and formats of the given {@link Locale}.
+    */
+   public RelativeTimeParser(final Locale locale)
+   {
+      this(Collections.singletonList(locale));
+   }
+
+   /**
+    * Create a {@link RelativeTimeParser} for the default units and formats of all given {@link Locale} instances.
+    */
+   public RelativeTimeParser(final Collection<Locale> locales)
+   {
+      for (Locale locale : locales) {
+         add(new PrettyTime(Objects.requireNonNull(locale, "Locale must not be null.")));
+      }
+   }
+
+   /**
+    * Create a {@link RelativeTimeParser} for the units and formats currently configured on the given
+    * {@link PrettyTime}.
+    */
+   public RelativeTimeParser(final PrettyTime prettyTime)
+   {
+      add(Objects.requireNonNull(prettyTime, "PrettyTime must not be null."));
+   }
+
+   private void add(final PrettyTime prettyTime)
+   {
+      locales.add(prettyTime.getLocale());
+      for (TimeUnit unit : prettyTime.getUnits()) {
+         TimeFormat format = prettyTime.getFormat(unit);
+         for (int sign = -1; sign <= 1; sign += 2) {
+            for (long quantity = 1; quantity <= SAMPLE_QUANTITIES; quantity++) {
+               DurationImpl duration = new DurationImpl();
+               duration.setUnit(unit);
+               duration.setQuantity(sign * quantity);
+               add(format.decorate(duration, format.format(duration)), unit, sign, quantity);
+               add(format.decorateUnrounded(duration, format.formatUnrounded(duration)), unit, sign, quantity);
+            }
+         }
+      }
+   }
+
+   /**
+    * Add the given formatted phrase, replacing the first number it shows, if any, by a placeholder. Later digits are
+    * matched literally.
+    */
+   private void add(final String phrase, final TimeUnit unit, final int sign, final long quantity)
+   {
+      int start = 0;
+      while (start < phrase.length() && !Character.isDigit(phrase.charAt(start))) {
+         start++;
+      }
+      int end = start;
+      while (end < phrase.length() && Character.isDigit(phrase.charAt(end))) {
+         end++;
+      }
+
+      long factor = 0;
+      if (end > start) {
+         if (end - start > MAX_DIGITS)
+            return;
+         long shown = number(phrase, start, end);
+         if (shown % quantity != 0)
+            return;
+         factor = shown / quantity;
+      }
+
+      Node node = insert(root, phrase, 0, start, false);
+      if (end > start) {
+         if (node.number == null)
+            node.number = new Node();
+         node = insert(node.number, phrase, end, phrase.length(), true);
+      }
+      if (node.phrase == null)
+         node.phrase = new Phrase(unit, sign, factor, quantity);
+   }
+
+   /**
+    * Add the characters of the given range of the phrase below the given {@link Node}, as {@link #parse(CharSequence)}
+    * matches them: lower case, with whitespace collapsed into a single space between characters.
+    */
+   private static Node insert(Node node, final String phrase, final int start, final int end, boolean started)
+   {
+      boolean space = false;
+      for (int i = start; i < end; i++) {
+         char c = phrase.charAt(i);
+         if (isSpace(c)) {
+            space = started;
+            continue;
+         }
+         if (space)
+            node = node.child(SPACE, true);
+         space = false;
+         started = true;
+         node = node.child(Character.toLowerCase(c), true);
+      }
+      if (space && end < phrase.length())
+         node = node.child(SPACE, true);
+      return node;
+   }
+
+   /**
+    * Return the {@link Duration} that the given text was formatted from, with a negative quantity if it is in the
+    * past, or <code>null</code> if the text is not a phrase of this parser.
+    */
+   public Duration parse(final CharSequence text)
+   {
+      Node node = root;
+      long number = 0;
+      boolean space = false;
+      boolean started = false;
+      int length = text.length();
+      int i = 0;
+      while (i < length) {
+         char c = text.charAt(i);
+         if (isSpace(c)) {
+            space = started;
+            i++;
+            continue;
+         }
+
+         if (space) {
+            node = node.child(SPACE, false);
+            if (node == null)
+               return null;
+            space = false;
+         }
+         started = true;
+
+         if (node.number != null && Character.isDigit(c)) {
+            int start = i;
+            while (i < length && Character.isDigit(text.charAt(i))) {
+               i++;
+            }
+            if (i - start > MAX_DIGITS)
+               return null;
+            number = number(text, start, i);
+            node = node.number;
+            continue;
+         }
+
+         node = node.child(Character.toLowerCase(c), false);
+         if (node == null)
+            return null;
+         i++;
+      }
+
+      Phrase phrase = node.phrase;
+      if (phrase == null)
+         return null;
+
+      DurationImpl result = new DurationImpl();
+      result.setUnit(phrase.unit);
+      result.setQuantity(phrase.sign * (phrase.factor == 0 ? phrase.quantity : number / phrase.factor));
+      return result;
+   }
+
+   /**
+    * Return the approximate {@link Instant} that the given text describes relative to the given reference, or
+    * <code>null</code> if the text is not a phrase of this parser or describes a time too far from the reference to be
+    * represented, such as "999999999999999 years ago".
+    */
+   public Instant parse(final CharSequence text, final Instant reference)
+   {
+      Duration duration = parse(text);
+      if (duration == null)
+         return null;
+      try {
+         return reference.plusMillis(Math.multiplyExact(duration.getQuantity(), duration.getUnit().getMillisPerUnit()));
+      }
+      catch (ArithmeticException | DateTimeException e) {
+         return null;
+      }
+   }
+
+   /**
+    * Return the {@link Locale} instances whose phrases are recognized, in the order they were added.
+    */
+   public List<Locale> getLocales()
+   {
+      return Collections.unmodifiableList(locales);
+   }
+
+   private static long number(final CharSequence text, final int start, final int end)
+   {
+      long result = 0;
+      for (int i = start; i < end; i++) {
+         result = result * 10 + Character.digit(text.charAt(i), 10);
+      }
+      return result;
+   }
+
+   private static boolean isSpace(final char c)
+   {
+      return Character.isWhitespace(c) || Character.isSpaceChar(c);
+   }
+
+   @Override
+   public String toString()
+   {
+      return "RelativeTimeParser [locales=" + locales + "]";
+   }
+
+   private static final class Phrase
+   {
+      private final TimeUnit unit;
+      private final int sign;
+      private final long factor;
+      private final long quantity;
+
+      Phrase(final TimeUnit unit, final int sign, final long factor, final long quantity)
+      {
+         this.unit = unit;
+         this.sign = sign;
+         this.factor = factor;
+         this.quantity = quantity;
+      }
+   }
+
+   private static final class Node
+   {
+      private char[] keys = new char[0];
+      private Node[] children = new Node[0];
+      private Node number;
+      private Phrase phrase;
+
+      Node child(final char key, final boolean create)
+      {
+         int index = Arrays.binarySearch(keys, key);
+         if (index >= 0)
+            return children[index];
+         if (!create)
+            return null;
+
+         index = -index - 1;
+         int size = keys.length;
+         char[] newKeys = new char[size + 1];
+         Node[] newChildren = new Node[size + 1];
+         System.arraycopy(keys, 0, newKeys, 0, index);
+         System.arraycopy(children, 0, newChildren, 0, index);
+         System.arraycopy(keys, index, newKeys, index + 1, size - index);
+         System.arraycopy(children, index, newChildren, index + 1, size - index);
+         newKeys[index] = key;
+         newChildren[index] = new Node();
+         keys = newKeys;
+         children = newChildren;
+         return newChildren[index];
+      }
+   }
+}
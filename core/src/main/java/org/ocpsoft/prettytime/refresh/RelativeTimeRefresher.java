@@ -0,0 +1,412 @@
+/*
+ * Copyright 2012 <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ocpsoft.prettytime.refresh;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.ocpsoft.prettytime.PrettyTime;
+
+/**
+ * Keeps any number of formatted relative timestamps up to date without polling them. Each {@link Subscription} is
+ * scheduled on a hierarchical timing wheel at the moment its text changes, as calculated by
+ * {@link PrettyTime#nextChange(long)}, and its callback is only invoked with the newly formatted {@link String} at
+ * that moment. Subscribing and cancelling take constant time; each tick only touches the subscriptions that are due.
+ * <p>
+ * The refresher is driven either by calling {@link #tick()} or by {@link #start(ScheduledExecutorService)}. All
+ * callbacks that become due in a tick are invoked together, on the ticking thread, after the wheel has been updated.
+ * An exception thrown by a callback is rethrown from {@link #tick()} once the remaining callbacks of the batch have
+ * run. When started, such exceptions are passed to the error handler instead, see
+ * {@link #setErrorHandler(Consumer)}, and the refresher keeps ticking.
+ * <p>
+ * The given {@link PrettyTime} is owned by the refresher: its reference is set on every tick, so it must not be used
+ * elsewhere.
+ *
+ * @author <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ */
+public class RelativeTimeRefresher implements AutoCloseable
+{
+   /**
+    * The default tick duration in milliseconds.
+    */
+   public static final long DEFAULT_TICK_MILLIS = 1000;
+
+   private static final int SLOT_BITS = 6;
+   private static final int SLOTS = 1 << SLOT_BITS;
+   private static final int MASK = SLOTS - 1;
+   private static final int LEVELS = 7;
+
+   private final PrettyTime prettyTime;
+   private final Clock clock;
+   private final long tickMillis;
+
+   private final Object lock = new Object();
+   private final Subscription[][] wheel = new Subscription[LEVELS][SLOTS];
+   private long currentTick;
+   private int size;
+   private ScheduledFuture<?> task;
+   private volatile Consumer<? super RuntimeException> errorHandler;
+
+   /**
+    * Create a new {@link RelativeTimeRefresher} using the system clock and a tick of {@link #DEFAULT_TICK_MILLIS}.
+    */
+   public RelativeTimeRefresher(final PrettyTime prettyTime)
+   {
+      this(prettyTime, Clock.systemUTC(), DEFAULT_TICK_MILLIS);
+   }
+
+   /**
+    * Create a new {@link RelativeTimeRefresher} using the given {@link Clock} and tick duration in milliseconds. Text
+    * changes are delivered on the first tick at or after the moment they occur.
+    */
+   public RelativeTimeRefresher(final PrettyTime prettyTime, final Clock clock, final long tickMillis)
+   {
+      this.prettyTime = Objects.requireNonNull(prettyTime, "PrettyTime must not be null.");
+      this.clock = Objects.requireNonNull(clock, "Clock must not be null.");
+      if (tickMillis <= 0)
+         throw new IllegalArgumentException("Tick duration must be positive: " + tickMillis);
+      this.tickMillis = tickMillis;
+      this.currentTick = Math.floorDiv(clock.millis(), tickMillis);
+   }
+
+   /**
+    * Subscribe to the formatted text of the given timestamp. The callback is invoked with the new text every time it
+    * changes, until the returned {@link Subscription} is cancelled or the text will never change again.
+    */
+   public Subscription subscribe(final Instant timestamp, final Consumer<String> callback)
+   {
+      Objects.requireNonNull(timestamp, "Timestamp must not be null.");
+      Objects.requireNonNull(callback, "Callback must not be null.");
+
+      Subscription subscription = new Subscription(timestamp.toEpochMilli(), callback);
+      synchronized (lock) {
+         long now = clock.millis();
+         prettyTime.setReference(Instant.ofEpochMilli(now));
+         subscription.text = prettyTime.format(timestamp);
+         schedule(subscription, prettyTime.nextChange(subscription.timestamp), currentTick + 1);
+      }
+      return subscription;
+   }
+
+   /**
+    * Advance the wheel to the current time of the {@link Clock} and invoke the callbacks of all subscriptions whose
+    * text changed since the last tick.
+    *
+    * @return the number of callbacks invoked
+    */
+   public int tick()
+   {
+      List<Subscription> changed = new ArrayList<>();
+      List<String> texts = new ArrayList<>();
+
+      synchronized (lock) {
+         long now = clock.millis();
+         long target = Math.floorDiv(now, tickMillis);
+         if (size == 0 && target > currentTick) {
+            currentTick = target;
+         }
+
+         Instant reference = Instant.ofEpochMilli(now);
+         prettyTime.setReference(reference);
+         while (currentTick < target) {
+            currentTick++;
+            cascade();
+
+            int slot = (int) (currentTick & MASK);
+            Subscription due = wheel[0][slot];
+            while (due != null) {
+               Subscription next = due.next;
+               due.unlink();
+               size--;
+
+               String text = prettyTime.format(Instant.ofEpochMilli(due.timestamp));
+               if (!text.equals(due.text)) {
+                  due.text = text;
+                  changed.add(due);
+                  texts.add(text);
+               }
+               schedule(due, prettyTime.nextChange(due.timestamp), currentTick + 1);
+               due = next;
+            }
+         }
+      }
+
+      int invoked = 0;
+      RuntimeException failure = null;
+      for (int i = 0; i < changed.size(); i++) {
+         Subscription subscription = changed.get(i);
+         if (subscription.isCancelled())
+            continue;
+         invoked++;
+         try {
+            subscription.callback.accept(texts.get(i));
+         }
+         catch (RuntimeException e) {
+            if (failure == null)
+               failure = e;
+            else
+               failure.addSuppressed(e);
+         }
+      }
+      if (failure != null)
+         throw failure;
+      return invoked;
+   }
+
+   /**
+    * Call {@link #tick()} periodically, once per tick duration, on the given {@link ScheduledExecutorService} until
+    * this refresher is closed.
+    */
+   public void start(final ScheduledExecutorService executor)
+   {
+      synchronized (lock) {
+         if (task != null)
+            throw new IllegalStateException("RelativeTimeRefresher has already been started.");
+         task = executor.scheduleAtFixedRate(this::scheduledTick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+      }
+   }
+
+   /**
+    * Set the handler that receives exceptions thrown by callbacks while this refresher ticks on its own, see
+    * {@link #start(ScheduledExecutorService)}. When no handler is set, they are passed to the uncaught exception handler
+    * of the ticking thread, which does not end that thread.
+    */
+   public void setErrorHandler(final Consumer<? super RuntimeException> errorHandler)
+   {
+      this.errorHandler = errorHandler;
+   }
+
+   /**
+    * A periodic task that throws is never run again, so no exception may escape a scheduled tick.
+    */
+   private void scheduledTick()
+   {
+      try {
+         tick();
+      }
+      catch (RuntimeException e) {
+         try {
+            Consumer<? super RuntimeException> handler = errorHandler;
+            if (handler != null) {
+               handler.accept(e);
+            }
+            else {
+               Thread thread = Thread.currentThread();
+               thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+            }
+         }
+         catch (RuntimeException ignored) {
+            // a failing handler must not stop the refresher either
+         }
+      }
+   }
+
+   /**
+    * Stop calling {@link #tick()} periodically. Subscriptions are kept.
+    */
+   @Override
+   public void close()
+   {
+      synchronized (lock) {
+         if (task != null) {
+            task.cancel(false);
+            task = null;
+         }
+      }
+   }
+
+   /**
+    * Return the number of subscriptions waiting for their next change.
+    */
+   public int size()
+   {
+      synchronized (lock) {
+         return size;
+      }
+   }
+
+   /**
+    * Return the tick duration in milliseconds.
+    */
+   public long getTickMillis()
+   {
+      return tickMillis;
+   }
+
+   /*
+    * Wheel
+    */
+
+   private void schedule(final Subscription subscription, final long nextChange, final long earliestTick)
+   {
+      if (nextChange == Long.MAX_VALUE || subscription.cancelled)
+         return;
+
+      long deadline = Math.max(earliestTick, Math.floorDiv(nextChange, tickMillis)
+               + (Math.floorMod(nextChange, tickMillis) == 0 ? 0 : 1));
+      subscription.deadline = deadline;
+      insert(subscription);
+   }
+
+   /**
+    * Place the subscription on the lowest level whose range covers its deadline. Deadlines beyond the highest level are
+    * parked in its farthest slot and placed again when it cascades.
+    */
+   private void insert(final Subscription subscription)
+   {
+      long delta = subscription.deadline - currentTick;
+      int level = 0;
+      while (level < LEVELS - 1 && delta >= (1L << (SLOT_BITS * (level + 1)))) {
+         level++;
+      }
+
+      long position = subscription.deadline;
+      if (level == LEVELS - 1 && delta >= (1L << (SLOT_BITS * LEVELS))) {
+         position = currentTick + ((long) MASK << (SLOT_BITS * level));
+      }
+      int slot = (int) ((position >>> (SLOT_BITS * level)) & MASK);
+
+      Subscription head = wheel[level][slot];
+      subscription.level = level;
+      subscription.slot = slot;
+      subscription.previous = null;
+      subscription.next = head;
+      if (head != null)
+         head.previous = subscription;
+      wheel[level][slot] = subscription;
+      size++;
+   }
+
+   /**
+    * Move the subscriptions of every higher level slot that starts at the current tick down the wheel.
+    */
+   private void cascade()
+   {
+      for (int level = 1; level < LEVELS; level++) {
+         if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) != 0)
+            return;
+
+         int slot = (int) ((currentTick >>> (SLOT_BITS * level)) & MASK);
+         Subscription entry = wheel[level][slot];
+         while (entry != null) {
+            Subscription next = entry.next;
+            entry.unlink();
+            size--;
+            if (entry.deadline < currentTick)
+               entry.deadline = currentTick;
+            insert(entry);
+            entry = next;
+         }
+      }
+   }
+
+   /**
+    * A subscription to the formatted text of a single timestamp.
+    */
+   public final class Subscription
+   {
+      private final long timestamp;
+      private final Consumer<String> callback;
+      private volatile String text;
+      private volatile boolean cancelled;
+
+      private long deadline;
+      private int level = -1;
+      private int slot;
+      private Subscription previous;
+      private Subscription next;
+
+      private Subscription(final long timestamp, final Consumer<String> callback)
+      {
+         this.timestamp = timestamp;
+         this.callback = callback;
+      }
+
+      /**
+       * Return the subscribed timestamp.
+       */
+      public Instant getTimestamp()
+      {
+         return Instant.ofEpochMilli(timestamp);
+      }
+
+      /**
+       * Return the most recently formatted text.
+       */
+      public String getText()
+      {
+         return text;
+      }
+
+      /**
+       * Return the tick on which the next change of the text will be delivered, or <code>null</code> if it will never
+       * change or this subscription has been cancelled.
+       */
+      public Instant getNextChange()
+      {
+         synchronized (lock) {
+            return level < 0 ? null : Instant.ofEpochMilli(deadline * tickMillis);
+         }
+      }
+
+      /**
+       * Stop delivering changes to this subscription's callback.
+       */
+      public void cancel()
+      {
+         synchronized (lock) {
+            if (cancelled)
+               return;
+            cancelled = true;
+            if (level >= 0) {
+               unlink();
+               size--;
+            }
+         }
+      }
+
+      public boolean isCancelled()
+      {
+         return cancelled;
+      }
+
+      private void unlink()
+      {
+         if (previous != null)
+            previous.next = next;
+         else
+            wheel[level][slot] = next;
+         if (next != null)
+            next.previous = previous;
+         previous = null;
+         next = null;
+         level = -1;
+      }
+
+      @Override
+      public String toString()
+      {
+         return "Subscription [" + getTimestamp() + ": " + text + "]";
+      }
+   }
+}
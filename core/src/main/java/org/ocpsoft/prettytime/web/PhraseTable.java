@@ -0,0 +1,134 @@
+/*
+ * Copyright 2012 <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ocpsoft.prettytime.web;
+
+import java.util.Locale;
+
+import org.ocpsoft.prettytime.PrettyTime;
+import org.ocpsoft.prettytime.TimeFormat;
+import org.ocpsoft.prettytime.TimeUnit;
+import org.ocpsoft.prettytime.format.SimpleTimeFormat;
+import org.ocpsoft.prettytime.impl.ResourcesTimeFormat;
+
+/**
+ * Exports the unit table and phrases of a {@link PrettyTime} instance as compact JSON, so that a client can keep
+ * relative times current without asking the server. The result has the following shape:
+ *
+ * <pre>
+ * {"locale":"en","units":[
+ *   {"name":"Minute","millis":60000,"maxQuantity":0,"precise":true,"roundingTolerance":50,"pattern":"%n %u",
+ *    "futurePrefix":"","futureSuffix":"from now","pastPrefix":"","pastSuffix":"ago",
+ *    "singularName":"minute","pluralName":"minutes"},
+ *   ...]}
+ * </pre>
+ *
+ * Units are listed in the order used by {@link PrettyTime#approximateDuration(java.time.Instant)}. The optional
+ * <code>futureSingularName</code>, <code>futurePluralName</code>, <code>pastSingularName</code> and
+ * <code>pastPluralName</code> are only present when the locale defines them. Units whose {@link TimeFormat} is not
+ * driven by phrases, such as the grammatical formats of {@link org.ocpsoft.prettytime.impl.TimeFormatProvider}
+ * locales, are marked <code>"custom":true</code> and carry no phrases; clients should fall back to the server for
+ * those, for example at the transition announced by {@link TimeElement}.
+ *
+ * @author <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ */
+public final class PhraseTable
+{
+   private PhraseTable()
+   {
+   }
+
+   /**
+    * Return the phrase table of the given {@link PrettyTime} for its current {@link Locale}.
+    */
+   public static String toJson(final PrettyTime prettyTime)
+   {
+      StringBuilder json = new StringBuilder(2048);
+      json.append("{\"locale\":");
+      string(json, prettyTime.getLocale().toLanguageTag());
+      json.append(",\"units\":[");
+
+      boolean first = true;
+      for (TimeUnit unit : prettyTime.getUnits()) {
+         if (!first)
+            json.append(',');
+         first = false;
+
+         json.append("{\"name\":");
+         string(json, unit.getClass().getSimpleName());
+         json.append(",\"millis\":").append(unit.getMillisPerUnit());
+         json.append(",\"maxQuantity\":").append(unit.getMaxQuantity());
+         json.append(",\"precise\":").append(unit.isPrecise());
+
+         TimeFormat format = prettyTime.getFormat(unit);
+         boolean custom = !(format instanceof SimpleTimeFormat)
+                  || (format instanceof ResourcesTimeFormat && ((ResourcesTimeFormat) format).getOverride() != null);
+         if (custom) {
+            json.append(",\"custom\":true}");
+            continue;
+         }
+
+         SimpleTimeFormat phrases = (SimpleTimeFormat) format;
+         json.append(",\"roundingTolerance\":").append(phrases.getRoundingTolerance());
+         field(json, "pattern", phrases.getPattern(), true);
+         field(json, "futurePrefix", phrases.getFuturePrefix(), true);
+         field(json, "futureSuffix", phrases.getFutureSuffix(), true);
+         field(json, "pastPrefix", phrases.getPastPrefix(), true);
+         field(json, "pastSuffix", phrases.getPastSuffix(), true);
+         field(json, "singularName", phrases.getSingularName(), true);
+         field(json, "pluralName", phrases.getPluralName(), true);
+         field(json, "futureSingularName", phrases.getFutureSingularName(), false);
+         field(json, "futurePluralName", phrases.getFuturePluralName(), false);
+         field(json, "pastSingularName", phrases.getPastSingularName(), false);
+         field(json, "pastPluralName", phrases.getPastPluralName(), false);
+         json.append('}');
+      }
+      return json.append("]}").toString();
+   }
+
+   private static void field(final StringBuilder json, final String name, final String value, final boolean required)
+   {
+      if (!required && (value == null || value.isEmpty()))
+         return;
+      json.append(",\"").append(name).append("\":");
+      string(json, value != null ? value : "");
+   }
+
+   private static void string(final StringBuilder json, final String value)
+   {
+      json.append('"');
+      for (int i = 0; i < value.length(); i++) {
+         char c = value.charAt(i);
+         switch (c) {
+         case '"':
+            json.append("\\\"");
+            break;
+         case '\\':
+            json.append("\\\\");
+            break;
+         case '<':
+            // keeps the table safe to embed in a <script> element
+            json.append("\\u003c");
+            break;
+         default:
+            if (c < 0x20 || c == '\u2028' || c == '\u2029')
+               json.append(String.format("\\u%04x", (int) c));
+            else
+               json.append(c);
+         }
+      }
+      json.append('"');
+   }
+}
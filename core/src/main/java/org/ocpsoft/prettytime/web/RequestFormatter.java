@@ -0,0 +1,119 @@
+/*
+ * Copyright 2012 <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ocpsoft.prettytime.web;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+
+import org.ocpsoft.prettytime.PrettyTime;
+
+/**
+ * Formats timestamps for web views against the state a request scoped filter keeps in request attributes: the
+ * reference {@link Instant} of the request ({@link #REFERENCE_ATTRIBUTE}), a memo of the texts already formatted
+ * during the request ({@link #FORMATTED_ATTRIBUTE}), and a {@link LongConsumer} that collects the moment each text
+ * changes ({@link #NEXT_CHANGE_ATTRIBUTE}). Each attribute is optional. The JSTL tag and the JSF converter share this
+ * logic, and only depend on the attribute names, not on the filters that set them.
+ *
+ * @author <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ */
+public final class RequestFormatter
+{
+   /**
+    * Request attribute holding the reference {@link Instant} of the current request.
+    */
+   public static final String REFERENCE_ATTRIBUTE = "org.ocpsoft.prettytime.REFERENCE";
+
+   /**
+    * Request attribute holding a {@link Map} of the texts formatted during the current request, keyed by
+    * {@link #key(Object, long)}.
+    */
+   public static final String FORMATTED_ATTRIBUTE = "org.ocpsoft.prettytime.FORMATTED";
+
+   /**
+    * Request attribute holding a {@link LongConsumer} that receives the epoch millis at which each text formatted
+    * during the current request changes, or {@link Long#MAX_VALUE} if it never does.
+    */
+   public static final String NEXT_CHANGE_ATTRIBUTE = "org.ocpsoft.prettytime.NEXT_CHANGE";
+
+   private RequestFormatter()
+   {
+   }
+
+   /**
+    * Return the memo key, <code>then + "@" + locale</code>, for a value formatted in the given locale at the given
+    * epoch millis.
+    */
+   public static String key(final Object locale, final long then)
+   {
+      return then + "@" + locale;
+   }
+
+   /**
+    * Format the given {@link Date}, or the reference if it is <code>null</code>, with the given {@link PrettyTime}.
+    * Without a reference attribute, the text is formatted against the current time and nothing is memoised or
+    * collected.
+    *
+    * @param attributes looks up the attributes of the current request, returning <code>null</code> for those that are
+    *           not set; may itself be <code>null</code> outside of a request
+    * @param timeElement whether to wrap the text in a <code>&lt;time&gt;</code> element, see {@link TimeElement}
+    */
+   public static String format(final PrettyTime prettyTime, final Date value, final boolean timeElement,
+            final Function<String, Object> attributes)
+   {
+      Object attribute = attributes != null ? attributes.apply(REFERENCE_ATTRIBUTE) : null;
+      Instant reference = attribute instanceof Instant ? (Instant) attribute : null;
+      if (reference == null) {
+         if (!timeElement)
+            return prettyTime.format(value);
+         reference = Instant.now();
+      }
+
+      Instant then = value != null ? value.toInstant() : reference;
+      Map<String, String> formatted = getFormatted(attributes);
+      String key = key(prettyTime.getLocale(), then.toEpochMilli());
+      String result = formatted != null ? formatted.get(key) : null;
+      Instant nextChange = null;
+      boolean changeKnown = false;
+      if (result == null) {
+         result = prettyTime.format(then, reference);
+         if (formatted != null)
+            formatted.put(key, result);
+
+         Object collector = attributes != null ? attributes.apply(NEXT_CHANGE_ATTRIBUTE) : null;
+         if (collector instanceof LongConsumer) {
+            nextChange = prettyTime.nextChange(then, reference);
+            changeKnown = true;
+            ((LongConsumer) collector).accept(nextChange != null ? nextChange.toEpochMilli() : Long.MAX_VALUE);
+         }
+      }
+
+      if (!timeElement)
+         return result;
+      if (!changeKnown)
+         nextChange = prettyTime.nextChange(then, reference);
+      return TimeElement.render(result, then, nextChange, prettyTime.getLocale());
+   }
+
+   @SuppressWarnings("unchecked")
+   private static Map<String, String> getFormatted(final Function<String, Object> attributes)
+   {
+      Object formatted = attributes != null ? attributes.apply(FORMATTED_ATTRIBUTE) : null;
+      return formatted instanceof Map ? (Map<String, String>) formatted : null;
+   }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2012 <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ocpsoft.prettytime.web;
+
+import java.time.Instant;
+import java.util.Locale;
+
+/**
+ * Renders a formatted relative time as an HTML <code>&lt;time&gt;</code> element that carries everything a client
+ * needs to keep it current:
+ *
+ * <pre>
+ * &lt;time datetime="2020-06-15T11:50:00Z" data-epoch="1592221800000" data-next-change="1592222430001"
+ *       data-locale="en"&gt;10 minutes ago&lt;/time&gt;
+ * </pre>
+ *
+ * <code>data-next-change</code> is the epoch millis at which the text changes (see
+ * {@link org.ocpsoft.prettytime.PrettyTime#nextChange(Instant, Instant)}) and is omitted if it never does. Combined
+ * with the {@link PhraseTable} of the locale, a client can re-render the text itself.
+ *
+ * @author <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ */
+public final class TimeElement
+{
+   private TimeElement()
+   {
+   }
+
+   /**
+    * Wrap the given formatted text, which is escaped, in a <code>&lt;time&gt;</code> element for the given
+    * {@link Instant}.
+    *
+    * @param text the formatted text of {@code then}
+    * @param then the formatted {@link Instant}
+    * @param nextChange the {@link Instant} at which the text changes, or <code>null</code> if it never does
+    * @param locale the {@link Locale} of the text
+    */
+   public static String render(final String text, final Instant then, final Instant nextChange, final Locale locale)
+   {
+      long epoch = then.toEpochMilli();
+      StringBuilder html = new StringBuilder(text.length() + 128);
+      html.append("<time datetime=\"").append(Instant.ofEpochMilli(epoch)).append('"');
+      html.append(" data-epoch=\"").append(epoch).append('"');
+      if (nextChange != null)
+         html.append(" data-next-change=\"").append(nextChange.toEpochMilli()).append('"');
+      if (locale != null)
+         escape(html.append(" data-locale=\""), locale.toLanguageTag()).append('"');
+      escape(html.append('>'), text).append("</time>");
+      return html.toString();
+   }
+
+   private static StringBuilder escape(final StringBuilder html, final String value)
+   {
+      for (int i = 0; i < value.length(); i++) {
+         char c = value.charAt(i);
+         switch (c) {
+         case '<':
+            html.append("&lt;");
+            break;
+         case '>':
+            html.append("&gt;");
+            break;
+         case '&':
+            html.append("&amp;");
+            break;
+         case '"':
+            html.append("&quot;");
+            break;
+         case '\'':
+            html.append("&#39;");
+            break;
+         default:
+            html.append(c);
+         }
+      }
+      return html;
+   }
+}
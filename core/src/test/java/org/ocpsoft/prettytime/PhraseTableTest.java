@@ -0,0 +1,61 @@
+/*
+ * Copyright 2012 <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ocpsoft.prettytime;
+
+import java.time.Instant;
+import java.util.Locale;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.ocpsoft.prettytime.web.PhraseTable;
+import org.ocpsoft.prettytime.web.TimeElement;
+
+public class PhraseTableTest
+{
+   @Test
+   public void testEnglishPhrases()
+   {
+      String json = PhraseTable.toJson(new PrettyTime(Locale.ENGLISH));
+      Assert.assertTrue(json, json.startsWith("{\"locale\":\"en\",\"units\":[{\"name\":"));
+      Assert.assertTrue(json, json.contains("{\"name\":\"Minute\",\"millis\":60000,\"maxQuantity\":0,\"precise\":true,"
+               + "\"roundingTolerance\":50,\"pattern\":\"%n %u\",\"futurePrefix\":\"\",\"futureSuffix\":\"from now\","
+               + "\"pastPrefix\":\"\",\"pastSuffix\":\"ago\",\"singularName\":\"minute\",\"pluralName\":\"minutes\"}"));
+      Assert.assertFalse(json, json.contains("\"custom\""));
+   }
+
+   @Test
+   public void testProvidedFormatsAreMarkedCustom()
+   {
+      String json = PhraseTable.toJson(new PrettyTime(new Locale("cs")));
+      Assert.assertTrue(json, json.contains("{\"name\":\"Minute\",\"millis\":60000,\"maxQuantity\":0,\"precise\":true,"
+               + "\"custom\":true}"));
+   }
+
+   @Test
+   public void testTimeElement()
+   {
+      Instant then = Instant.parse("2020-06-15T11:50:00Z");
+      Instant reference = Instant.parse("2020-06-15T12:00:00Z");
+      PrettyTime t = new PrettyTime(Locale.ENGLISH);
+
+      String html = TimeElement.render(t.format(then, reference), then, t.nextChange(then, reference),
+               t.getLocale());
+      Assert.assertEquals("<time datetime=\"2020-06-15T11:50:00Z\" data-epoch=\"1592221800000\""
+               + " data-next-change=\"1592222430001\" data-locale=\"en\">10 minutes ago</time>", html);
+      Assert.assertEquals("<time datetime=\"2020-06-15T11:50:00Z\" data-epoch=\"1592221800000\">&lt;b&gt;</time>",
+               TimeElement.render("<b>", then, null, null));
+   }
+}
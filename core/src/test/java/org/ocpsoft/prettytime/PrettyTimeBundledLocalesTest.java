@@ -0,0 +1,151 @@
+/*
+ * Copyright 2012 <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ocpsoft.prettytime;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+import org.ocpsoft.prettytime.i18n.Resources;
+import org.ocpsoft.prettytime.i18n.SupportedLocales;
+
+/**
+ * Exercises every bundled {@link Resources} locale. This test is also run as a native executable by the
+ * <code>native</code> profile, so it must not depend on anything the native-image configuration does not register.
+ */
+public class PrettyTimeBundledLocalesTest
+{
+   private static final String BUNDLE = "org.ocpsoft.prettytime.i18n.Resources";
+
+   @Test
+   public void testEveryBundledLocaleResolvesItsOwnBundle()
+   {
+      for (Locale locale : SupportedLocales.getLocales()) {
+         ResourceBundle bundle = ResourceBundle.getBundle(BUNDLE, locale);
+         Assert.assertEquals(locale.toString(), locale, bundle.getLocale());
+         Assert.assertTrue(locale.toString(), SupportedLocales.isSupported(locale));
+         Assert.assertEquals(locale.toString(), bundle.getLocale(), SupportedLocales.resolve(locale));
+      }
+   }
+
+   @Test
+   public void testResolvesToTheBundleResourceBundleWouldSelect()
+   {
+      for (String tag : Arrays.asList("en-AU", "pt-BR-u-nu-latn", "id", "he", "zh-Hant-HK", "zh-Hant", "sr-Latn-RS",
+               "nb", "no-NO", "de-CH-1996", "tk", "xx")) {
+         Locale locale = Locale.forLanguageTag(tag);
+         Assert.assertEquals(tag, ResourceBundle.getBundle(BUNDLE, locale).getClass(),
+                  ResourceBundle.getBundle(BUNDLE, SupportedLocales.resolve(locale)).getClass());
+      }
+   }
+
+   @Test
+   public void testEveryBundledLocaleFormatsEveryUnit()
+   {
+      Instant reference = Instant.parse("2020-06-15T12:00:00Z");
+      for (Locale locale : SupportedLocales.getLocales()) {
+         PrettyTime t = new PrettyTime(reference);
+         t.setLocale(locale);
+         for (TimeUnit unit : t.getUnits()) {
+            long millis = unit.getMillisPerUnit() * 3;
+            Assert.assertNotNull(locale + " " + unit, t.format(reference.plus(millis, ChronoUnit.MILLIS)));
+            Assert.assertNotNull(locale + " " + unit, t.format(reference.minus(millis, ChronoUnit.MILLIS)));
+         }
+      }
+   }
+
+   /**
+    * {@link SupportedLocales#getLocales()} is the list of bundled locales, the native-image configuration and the
+    * compiled <code>Resources_*</code> classes must all agree with it.
+    */
+   @Test
+   public void testNativeImageConfigurationListsEveryBundle() throws IOException
+   {
+      URL classes = Resources.class.getResource("Resources.class");
+      Assume.assumeTrue(classes != null && "file".equals(classes.getProtocol()));
+
+      Set<Locale> compiled = new HashSet<Locale>();
+      File[] files = new File(classes.getPath()).getParentFile().listFiles();
+      Assert.assertNotNull(files);
+      for (File file : files) {
+         String name = file.getName();
+         if (name.startsWith("Resources_") && name.endsWith(".class") && !name.contains("$"))
+            compiled.add(toLocale(name.substring("Resources_".length(), name.length() - ".class".length())));
+      }
+      Assert.assertEquals(compiled, SupportedLocales.getLocales());
+
+      Set<Locale> reflected = new HashSet<Locale>();
+      Matcher names = Pattern.compile("\"" + Pattern.quote(BUNDLE) + "_([A-Za-z_]+)\"").matcher(
+               read("META-INF/native-image/org.ocpsoft.prettytime/prettytime/reflect-config.json"));
+      while (names.find()) {
+         reflected.add(toLocale(names.group(1)));
+      }
+      Assert.assertEquals(SupportedLocales.getLocales(), reflected);
+
+      Matcher array = Pattern.compile("\"locales\"\\s*:\\s*\\[([^\\]]*)\\]").matcher(
+               read("META-INF/native-image/org.ocpsoft.prettytime/prettytime/resource-config.json"));
+      Assert.assertTrue(array.find());
+      Set<Locale> included = new HashSet<Locale>();
+      Matcher tags = Pattern.compile("\"([A-Za-z-]+)\"").matcher(array.group(1));
+      while (tags.find()) {
+         included.add(toLocale(tags.group(1).replace('-', '_')));
+      }
+      Assert.assertEquals(SupportedLocales.getLocales(), included);
+   }
+
+   private static Locale toLocale(String suffix)
+   {
+      String[] parts = suffix.split("_");
+      if (parts.length == 1)
+         return new Locale(parts[0]);
+      if (parts[1].length() == 4)
+         return new Locale.Builder().setLanguage(parts[0]).setScript(parts[1]).build();
+      return new Locale(parts[0], parts[1]);
+   }
+
+   private static String read(String resource) throws IOException
+   {
+      InputStream stream = PrettyTimeBundledLocalesTest.class.getClassLoader().getResourceAsStream(resource);
+      Assert.assertNotNull(resource, stream);
+      try {
+         ByteArrayOutputStream out = new ByteArrayOutputStream();
+         byte[] buffer = new byte[4096];
+         int read;
+         while ((read = stream.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+         }
+         return new String(out.toByteArray(), StandardCharsets.UTF_8);
+      }
+      finally {
+         stream.close();
+      }
+   }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2012 <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ocpsoft.prettytime;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Locale;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.ocpsoft.prettytime.cache.PrettyTimeCache;
+import org.ocpsoft.prettytime.management.PrettyTimeManagement;
+
+public class PrettyTimeCacheTest
+{
+   @Test
+   public void testCachesPerLocale() throws Exception
+   {
+      PrettyTimeCache cache = new PrettyTimeCache("test", 2);
+      PrettyTime german = cache.get(Locale.GERMAN);
+      Assert.assertSame(german, cache.get(Locale.GERMAN));
+      Assert.assertEquals(Locale.GERMAN, german.getLocale());
+      Assert.assertEquals(1, cache.getHits());
+      Assert.assertEquals(1, cache.getMisses());
+   }
+
+   @Test
+   public void testEvictsLeastRecentlyUsed() throws Exception
+   {
+      PrettyTimeCache cache = new PrettyTimeCache("test", 2);
+      cache.get(Locale.GERMAN);
+      cache.get(Locale.FRENCH);
+      cache.get(Locale.GERMAN);
+      cache.get(Locale.ITALIAN);
+
+      Assert.assertEquals(Arrays.asList(Locale.GERMAN, Locale.ITALIAN), cache.getLocales());
+      Assert.assertEquals(1, cache.getEvictions());
+
+      cache.setMaxSize(1);
+      Assert.assertEquals(Arrays.asList(Locale.ITALIAN), cache.getLocales());
+      Assert.assertEquals(2, cache.getEvictions());
+   }
+
+   @Test
+   public void testConcurrentAccessStaysBounded() throws Exception
+   {
+      final PrettyTimeCache cache = new PrettyTimeCache("test", 4);
+      final Locale[] locales = Locale.getAvailableLocales();
+      final int calls = 500;
+      Thread[] threads = new Thread[8];
+      for (int i = 0; i < threads.length; i++) {
+         final int offset = i;
+         threads[i] = new Thread(() -> {
+            for (int j = 0; j < calls; j++) {
+               Locale locale = locales[(offset + j % 6) % locales.length];
+               Assert.assertEquals(locale, cache.get(locale).getLocale());
+            }
+         });
+         threads[i].start();
+      }
+      for (Thread thread : threads) {
+         thread.join();
+      }
+
+      Assert.assertTrue(cache.size() <= 4);
+      Assert.assertEquals(threads.length * calls, cache.getHits() + cache.getMisses());
+      Assert.assertEquals(cache.getMisses() - cache.size(), cache.getEvictions());
+   }
+
+   @Test
+   public void testPreloadAndClear() throws Exception
+   {
+      PrettyTimeCache cache = new PrettyTimeCache("test", 5);
+      cache.preload(Arrays.asList(Locale.GERMAN, Locale.FRENCH));
+      Assert.assertEquals(2, cache.size());
+      Assert.assertEquals(0, cache.getMisses());
+
+      Assert.assertTrue(cache.clear(Locale.GERMAN));
+      Assert.assertFalse(cache.clear(Locale.GERMAN));
+      cache.clear();
+      Assert.assertEquals(0, cache.size());
+   }
+
+   @Test
+   public void testManagement() throws Exception
+   {
+      PrettyTimeCache cache = new PrettyTimeCache("management-test", 5);
+      PrettyTimeManagement.register(cache);
+      try {
+         MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+         ObjectName name = PrettyTimeManagement.getObjectName(cache);
+
+         server.invoke(name, "preload", new Object[] { "de, fr" }, new String[] { String.class.getName() });
+         cache.get(Locale.GERMAN);
+         Assert.assertEquals(2, server.getAttribute(name, "Size"));
+         Assert.assertEquals(1.0, (Double) server.getAttribute(name, "HitRatio"), 0.0);
+         Assert.assertArrayEquals(new String[] { "fr", "de" }, (String[]) server.getAttribute(name, "LoadedLocales"));
+
+         server.invoke(name, "resize", new Object[] { 1 }, new String[] { int.class.getName() });
+         Assert.assertEquals(1, cache.getMaxSize());
+         Assert.assertEquals(1L, server.getAttribute(name, "Evictions"));
+
+         server.invoke(name, "clearLocale", new Object[] { "de" }, new String[] { String.class.getName() });
+         Assert.assertEquals(0, cache.size());
+      }
+      finally {
+         PrettyTimeManagement.unregister(cache);
+      }
+   }
+}
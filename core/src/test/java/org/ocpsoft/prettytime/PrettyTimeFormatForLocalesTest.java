@@ -0,0 +1,159 @@
+/*
+ * Copyright 2012 <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ocpsoft.prettytime;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.ocpsoft.prettytime.format.SimpleTimeFormat;
+import org.ocpsoft.prettytime.units.Minute;
+
+public class PrettyTimeFormatForLocalesTest
+{
+   private static final Instant REFERENCE = Instant.parse("2020-06-15T12:00:00Z");
+
+   @Test
+   public void testMatchesFormatOfEachLocale()
+   {
+      List<Locale> locales = Arrays.asList(Locale.ENGLISH, Locale.GERMAN, new Locale("cs"), new Locale("ru"),
+               new Locale("ja"), Locale.FRENCH, new Locale("pt", "BR"));
+      long[] offsets = { -30 * 1000L, 10 * 60 * 1000L, -3 * 60 * 60 * 1000L, 5 * 24 * 60 * 60 * 1000L,
+               -400 * 24 * 60 * 60 * 1000L };
+
+      PrettyTime t = prettyTime(Locale.ENGLISH);
+      for (long offset : offsets) {
+         Instant then = REFERENCE.plusMillis(offset);
+         Map<Locale, String> result = t.formatForLocales(then, locales);
+         Assert.assertEquals(locales, Arrays.asList(result.keySet().toArray()));
+         for (Locale locale : locales) {
+            Assert.assertEquals(locale + " " + offset, prettyTime(locale).format(then), result.get(locale));
+         }
+      }
+      Assert.assertEquals(Locale.ENGLISH, t.getLocale());
+   }
+
+   @Test
+   public void testLocalizedFormatsFollowRegisteredUnits()
+   {
+      PrettyTime t = prettyTime(Locale.ENGLISH);
+      Instant then = REFERENCE.minusSeconds(10 * 60);
+      Assert.assertEquals("vor 10 Minuten", t.formatForLocales(then, Arrays.asList(Locale.GERMAN)).get(Locale.GERMAN));
+
+      t.removeUnit(Minute.class);
+      PrettyTime german = prettyTime(Locale.GERMAN);
+      german.removeUnit(Minute.class);
+      String result = t.formatForLocales(then, Arrays.asList(Locale.GERMAN)).get(Locale.GERMAN);
+      Assert.assertEquals(german.format(then), result);
+      Assert.assertFalse("vor 10 Minuten".equals(result));
+   }
+
+   @Test
+   public void testKeepsCustomizedFormats()
+   {
+      // 10 minutes and 20 seconds are rounded up to 11 minutes with a tolerance of 30 percent
+      Instant then = REFERENCE.minusSeconds(10 * 60 + 20);
+      PrettyTime t = prettyTime(Locale.ENGLISH);
+      ((SimpleTimeFormat) t.getFormat(t.getUnit(Minute.class))).setRoundingTolerance(30);
+
+      PrettyTime french = prettyTime(Locale.ENGLISH);
+      ((SimpleTimeFormat) french.getFormat(french.getUnit(Minute.class))).setRoundingTolerance(30);
+      french.setLocale(Locale.FRENCH);
+
+      String result = t.formatForLocales(then, Arrays.asList(Locale.FRENCH)).get(Locale.FRENCH);
+      Assert.assertEquals(french.format(then), result);
+      Assert.assertEquals("il y a 11 minutes", result);
+   }
+
+   @Test
+   public void testReloadsCustomizedPhrasesLikeSetLocale()
+   {
+      Instant then = REFERENCE.minusSeconds(10 * 60);
+      PrettyTime t = prettyTime(Locale.ENGLISH);
+      ((SimpleTimeFormat) t.getFormat(t.getUnit(Minute.class))).setPastPrefix("roughly").setPattern("%n %u!");
+      Assert.assertEquals("roughly 10 minutes! ago", t.format(then));
+
+      PrettyTime french = prettyTime(Locale.ENGLISH);
+      ((SimpleTimeFormat) french.getFormat(french.getUnit(Minute.class))).setPastPrefix("roughly").setPattern("%n %u!");
+      french.setLocale(Locale.FRENCH);
+
+      Map<Locale, String> result = t.formatForLocales(then, Arrays.asList(Locale.ENGLISH, Locale.FRENCH));
+      Assert.assertEquals("roughly 10 minutes! ago", result.get(Locale.ENGLISH));
+      Assert.assertEquals(french.format(then), result.get(Locale.FRENCH));
+      Assert.assertEquals("il y a 10 minutes", result.get(Locale.FRENCH));
+   }
+
+   @Test
+   public void testLocalizesLocaleAwareExtensions()
+   {
+      PrettyTime t = prettyTime(Locale.ENGLISH);
+      t.registerUnit(t.getUnit(Minute.class), new LocaleTimeFormat());
+      Instant then = REFERENCE.minusSeconds(10 * 60);
+
+      Map<Locale, String> result = t.formatForLocales(then, Arrays.asList(Locale.GERMAN, Locale.ENGLISH));
+      Assert.assertEquals("de", result.get(Locale.GERMAN));
+      Assert.assertEquals("en", result.get(Locale.ENGLISH));
+      Assert.assertEquals(Locale.ENGLISH, t.getLocale());
+      Assert.assertEquals("en", t.format(then));
+   }
+
+   private static class LocaleTimeFormat implements TimeFormat, LocaleAware<LocaleTimeFormat>
+   {
+      private Locale locale;
+
+      @Override
+      public LocaleTimeFormat setLocale(Locale locale)
+      {
+         this.locale = locale;
+         return this;
+      }
+
+      @Override
+      public String format(Duration duration)
+      {
+         return locale.toString();
+      }
+
+      @Override
+      public String formatUnrounded(Duration duration)
+      {
+         return format(duration);
+      }
+
+      @Override
+      public String decorate(Duration duration, String time)
+      {
+         return time;
+      }
+
+      @Override
+      public String decorateUnrounded(Duration duration, String time)
+      {
+         return time;
+      }
+   }
+
+   private static PrettyTime prettyTime(Locale locale)
+   {
+      PrettyTime t = new PrettyTime(locale);
+      t.setReference(REFERENCE);
+      return t;
+   }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2012 <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ocpsoft.prettytime;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.ocpsoft.prettytime.metrics.Metrics;
+import org.ocpsoft.prettytime.metrics.PrettyTimeMetrics;
+import org.ocpsoft.prettytime.metrics.PrettyTimeMetrics.Span;
+import org.ocpsoft.prettytime.units.Day;
+import org.ocpsoft.prettytime.units.Hour;
+
+public class PrettyTimeMetricsTest
+{
+   private final Instant reference = Instant.parse("2020-06-15T12:00:00Z");
+
+   @After
+   public void tearDown() throws Exception
+   {
+      Metrics.reset();
+   }
+
+   @Test
+   public void testCountsCallsPerOperationAndUnit() throws Exception
+   {
+      CountingMetrics metrics = new CountingMetrics();
+      Metrics.register(metrics);
+
+      PrettyTime t = new PrettyTime(Locale.ENGLISH).setReference(reference);
+      Assert.assertEquals("3 hours ago", t.format(reference.minusSeconds(3 * 60 * 60)));
+      t.format(reference.minusSeconds(2 * 60 * 60));
+      t.formatUnrounded(reference.minusSeconds(3 * 24 * 60 * 60));
+      t.formatDuration(reference.minusSeconds(3 * 24 * 60 * 60));
+      t.formatDurationUnrounded(reference.minusSeconds(3 * 24 * 60 * 60));
+      t.calculatePreciseDuration(reference.minusSeconds(3 * 60 * 60));
+
+      Assert.assertEquals(2, metrics.count(PrettyTimeMetrics.Operation.FORMAT, Hour.class));
+      Assert.assertEquals(1, metrics.count(PrettyTimeMetrics.Operation.FORMAT_UNROUNDED, Day.class));
+      Assert.assertEquals(1, metrics.count(PrettyTimeMetrics.Operation.FORMAT_DURATION, Day.class));
+      Assert.assertEquals(1, metrics.count(PrettyTimeMetrics.Operation.FORMAT_DURATION_UNROUNDED, Day.class));
+      Assert.assertEquals(1, metrics.count(PrettyTimeMetrics.Operation.PRECISE_DURATION, Hour.class));
+      Assert.assertEquals(0, metrics.latencies.get());
+   }
+
+   @Test
+   public void testSamplesLatency() throws Exception
+   {
+      CountingMetrics metrics = new CountingMetrics();
+      Metrics.register(metrics, 1);
+
+      PrettyTime t = new PrettyTime(reference);
+      for (int i = 0; i < 10; i++) {
+         t.format(reference.minusSeconds(i * 60));
+      }
+      Assert.assertEquals(10, metrics.latencies.get());
+   }
+
+   @Test
+   public void testReportsBundleLoads() throws Exception
+   {
+      PrettyTime t = new PrettyTime(reference);
+      CountingMetrics metrics = new CountingMetrics();
+      Metrics.register(metrics);
+
+      t.setLocale(Locale.GERMAN);
+      Assert.assertEquals(t.getUnits().size(), metrics.bundles.size());
+      for (Locale locale : metrics.bundles) {
+         Assert.assertEquals(Locale.GERMAN, locale);
+      }
+   }
+
+   @Test
+   public void testNothingReportedAfterReset() throws Exception
+   {
+      CountingMetrics metrics = new CountingMetrics();
+      Metrics.register(metrics, 1);
+      Metrics.reset();
+
+      new PrettyTime(Locale.GERMAN).setReference(reference).format(reference);
+      Assert.assertFalse(Metrics.isEnabled());
+      Assert.assertTrue(metrics.calls.isEmpty());
+      Assert.assertTrue(metrics.bundles.isEmpty());
+   }
+
+   @Test
+   public void testTimesNothingWhenDisabled() throws Exception
+   {
+      Assert.assertEquals(Metrics.NOT_SAMPLED, Metrics.timestamp(Span.BUNDLE_LOAD));
+      Assert.assertEquals(Metrics.NOT_SAMPLED, Metrics.start());
+
+      CountingMetrics metrics = new CountingMetrics();
+      Metrics.register(metrics);
+      Assert.assertTrue(Metrics.timestamp(Span.BUNDLE_LOAD) != Metrics.NOT_SAMPLED);
+
+      // a bundle load that started before the registration is not reported with a bogus duration
+      Metrics.bundleLoaded(Locale.GERMAN, "base", new Day(), Metrics.NOT_SAMPLED);
+      Assert.assertTrue(metrics.bundles.isEmpty());
+   }
+
+   @Test
+   public void testStartsEverySpanItReports() throws Exception
+   {
+      PrettyTime t = new PrettyTime(reference);
+      CountingMetrics metrics = new CountingMetrics();
+      Metrics.register(metrics, 1);
+
+      t.setLocale(Locale.GERMAN);
+      t.format(reference.minusSeconds(60 * 60));
+      Assert.assertEquals(1, metrics.count(Span.LOCALE_CHANGE));
+      Assert.assertEquals(metrics.bundles.size(), metrics.count(Span.BUNDLE_LOAD));
+      Assert.assertEquals(metrics.latencies.get(), metrics.count(Span.CALL));
+      Assert.assertEquals(1, metrics.count(Span.CALL));
+   }
+
+   @Test
+   public void testFlightRecorderNeedsItsModule() throws Exception
+   {
+      Assert.assertFalse(Metrics.registerFlightRecorder(0));
+      Assert.assertFalse(Metrics.isEnabled());
+   }
+
+   private static class CountingMetrics implements PrettyTimeMetrics
+   {
+      private final Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+      private final AtomicInteger latencies = new AtomicInteger();
+      private final List<Locale> bundles = new ArrayList<>();
+
+      @Override
+      public void called(Operation operation, Locale locale, TimeUnit unit)
+      {
+         calls.computeIfAbsent(operation + " " + unit.getClass().getSimpleName(), k -> new AtomicInteger())
+                  .incrementAndGet();
+      }
+
+      @Override
+      public void started(Span span)
+      {
+         calls.computeIfAbsent(span.name(), k -> new AtomicInteger()).incrementAndGet();
+      }
+
+      @Override
+      public void latency(Operation operation, Locale locale, TimeUnit unit, long nanos)
+      {
+         Assert.assertTrue(nanos >= 0);
+         latencies.incrementAndGet();
+      }
+
+      @Override
+      public synchronized void bundleLoaded(Locale locale, String baseName, TimeUnit unit, long nanos)
+      {
+         bundles.add(locale);
+      }
+
+      int count(Span span)
+      {
+         AtomicInteger count = calls.get(span.name());
+         return count == null ? 0 : count.get();
+      }
+
+      int count(Operation operation, Class<? extends TimeUnit> unit)
+      {
+         AtomicInteger count = calls.get(operation + " " + unit.getSimpleName());
+         return count == null ? 0 : count.get();
+      }
+   }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2012 <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ocpsoft.prettytime;
+
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PrettyTimeNextChangeTest
+{
+   private static final Instant REFERENCE = Instant.parse("2020-06-15T12:00:00Z");
+
+   @Test
+   public void testFutureMinutesRoundDown()
+   {
+      PrettyTime t = prettyTime(REFERENCE, Locale.ENGLISH);
+      Instant then = REFERENCE.plusSeconds(10 * 60);
+      Assert.assertEquals("10 minutes from now", t.format(then));
+      Assert.assertEquals(REFERENCE.plusSeconds(30), t.nextChange(then));
+   }
+
+   @Test
+   public void testPastMinutesRoundUp()
+   {
+      PrettyTime t = prettyTime(REFERENCE, Locale.ENGLISH);
+      Instant then = REFERENCE.minusSeconds(10 * 60);
+      Assert.assertEquals("10 minutes ago", t.format(then));
+      Assert.assertEquals(REFERENCE.plusMillis(30001), t.nextChange(then));
+   }
+
+   @Test
+   public void testJustNowBecomesMinutes()
+   {
+      PrettyTime t = prettyTime(REFERENCE, Locale.ENGLISH);
+      Instant then = REFERENCE.minusSeconds(30);
+      Assert.assertEquals("moments ago", t.format(then));
+      Assert.assertEquals(REFERENCE.plusSeconds(30), t.nextChange(then));
+   }
+
+   @Test
+   public void testFutureBecomesPast()
+   {
+      PrettyTime t = prettyTime(REFERENCE, Locale.ENGLISH);
+      Instant then = REFERENCE.plusSeconds(30);
+      Assert.assertEquals("moments from now", t.format(then));
+      Assert.assertEquals(REFERENCE.plusMillis(30001), t.nextChange(then));
+   }
+
+   @Test
+   public void testEpochMillisMatchesInstant()
+   {
+      PrettyTime t = prettyTime(REFERENCE, Locale.ENGLISH);
+      Instant then = REFERENCE.minusSeconds(3 * 60 * 60);
+      Assert.assertEquals(t.nextChange(then).toEpochMilli(), t.nextChange(then.toEpochMilli()));
+   }
+
+   @Test
+   public void testExplicitReferenceMatchesInstanceReference()
+   {
+      PrettyTime t = prettyTime(REFERENCE.minusSeconds(60 * 60 * 24), Locale.ENGLISH);
+      Instant then = REFERENCE.minusSeconds(10 * 60);
+      Assert.assertEquals(prettyTime(REFERENCE, Locale.ENGLISH).nextChange(then), t.nextChange(then, REFERENCE));
+   }
+
+   @Test
+   public void testTextChangesExactlyAtTheReportedInstant()
+   {
+      Random random = new Random(42);
+      long[] scales = { 1000L, 60 * 1000L, 60 * 60 * 1000L, 24 * 60 * 60 * 1000L, 30 * 24 * 60 * 60 * 1000L,
+               20 * 365 * 24 * 60 * 60 * 1000L };
+      for (Locale locale : new Locale[] { Locale.ENGLISH, Locale.GERMAN, new Locale("cs"), new Locale("ru") }) {
+         for (int i = 0; i < 200; i++) {
+            long scale = scales[random.nextInt(scales.length)];
+            long offset = (long) ((random.nextDouble() * 2 - 1) * scale * 5);
+            Instant then = REFERENCE.plusMillis(offset);
+
+            String current = prettyTime(REFERENCE, locale).format(then);
+            Instant next = prettyTime(REFERENCE, locale).nextChange(then);
+            Assert.assertNotNull(locale + " " + offset, next);
+            Assert.assertTrue(locale + " " + offset, next.isAfter(REFERENCE));
+            Assert.assertEquals(locale + " " + offset, current,
+                     prettyTime(next.minusMillis(1), locale).format(then));
+            Assert.assertFalse(locale + " " + offset, current.equals(prettyTime(next, locale).format(then)));
+         }
+      }
+   }
+
+   private static PrettyTime prettyTime(Instant reference, Locale locale)
+   {
+      PrettyTime t = new PrettyTime(locale);
+      t.setReference(reference);
+      return t;
+   }
+}
@@ -15,6 +15,7 @@
  */
 package org.ocpsoft.prettytime;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
@@ -73,6 +74,15 @@ public class PrettyTimeTest {
         Assert.assertEquals("moments from now", formatted);
     }
 
+    @Test
+    public void testFormatWithExplicitReference() throws Exception {
+        Instant reference = Instant.parse("2020-06-15T12:00:00Z");
+        PrettyTime t = new PrettyTime(reference.minusSeconds(60 * 60 * 24));
+        Assert.assertEquals("3 hours ago", t.format(reference.minusSeconds(3 * 60 * 60), reference));
+        Assert.assertEquals("moments from now", t.format(null, reference));
+        Assert.assertEquals(reference.minusSeconds(60 * 60 * 24), t.getReference());
+    }
+
     @Test
     public void testCalculatePreciceDuration() throws Exception {
         PrettyTime t = new PrettyTime();
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2012 <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ocpsoft.prettytime;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.ocpsoft.prettytime.i18n.SupportedLocales;
+import org.ocpsoft.prettytime.parse.RelativeTimeParser;
+import org.ocpsoft.prettytime.units.Day;
+import org.ocpsoft.prettytime.units.Hour;
+import org.ocpsoft.prettytime.units.JustNow;
+import org.ocpsoft.prettytime.units.Minute;
+import org.ocpsoft.prettytime.units.Month;
+import org.ocpsoft.prettytime.units.Year;
+
+public class RelativeTimeParserTest
+{
+   private static final Instant REFERENCE = Instant.parse("2020-06-15T12:00:00Z");
+
+   @Test
+   public void testParsesEnglish()
+   {
+      RelativeTimeParser parser = new RelativeTimeParser(Locale.ENGLISH);
+      assertDuration(Day.class, -3, parser.parse("3 days ago"));
+      assertDuration(Minute.class, 5, parser.parse("5 minutes from now"));
+      assertDuration(Year.class, -1, parser.parse("1 year ago"));
+      assertDuration(Day.class, -3, parser.parse("  3  DAYS   Ago "));
+      Assert.assertTrue(parser.parse("moments ago").getUnit() instanceof JustNow);
+      Assert.assertTrue(parser.parse("moments ago").isInPast());
+   }
+
+   @Test
+   public void testParsesPluralAndCaseForms()
+   {
+      RelativeTimeParser czech = new RelativeTimeParser(new Locale("cs"));
+      assertDuration(Hour.class, -1, czech.parse("před 1 hodinou"));
+      assertDuration(Hour.class, -2, czech.parse("před 2 hodinami"));
+      assertDuration(Hour.class, 2, czech.parse("za 2 hodiny"));
+      assertDuration(Hour.class, 5, czech.parse("za 5 hodin"));
+
+      RelativeTimeParser russian = new RelativeTimeParser(new Locale("ru"));
+      assertDuration(Day.class, -1, russian.parse("1 день назад"));
+      assertDuration(Day.class, -22, russian.parse("22 дня назад"));
+      assertDuration(Day.class, -25, russian.parse("25 дней назад"));
+
+      RelativeTimeParser german = new RelativeTimeParser(Locale.GERMAN);
+      assertDuration(Day.class, -3, german.parse("vor 3 Tagen"));
+      assertDuration(Month.class, 1, german.parse("in 1 Monat"));
+   }
+
+   @Test
+   public void testRecognizesSeveralLocalesAtOnce()
+   {
+      List<Locale> locales = Arrays.asList(Locale.ENGLISH, Locale.GERMAN, Locale.JAPANESE);
+      RelativeTimeParser parser = new RelativeTimeParser(locales);
+      Assert.assertEquals(locales, parser.getLocales());
+      assertDuration(Day.class, -3, parser.parse("3 days ago"));
+      assertDuration(Day.class, -3, parser.parse("vor 3 Tagen"));
+      assertDuration(Day.class, -3, parser.parse("3日前"));
+      Assert.assertEquals(REFERENCE.minusSeconds(3 * 24 * 60 * 60), parser.parse("vor 3 Tagen", REFERENCE));
+   }
+
+   @Test
+   public void testRejectsOtherText()
+   {
+      RelativeTimeParser parser = new RelativeTimeParser(Locale.ENGLISH);
+      for (String text : new String[] { "", "yesterday", "3 days", "days ago", "3 days ago and more", "3 weeks ago2",
+               "vor 3 Tagen" }) {
+         Assert.assertNull(text, parser.parse(text));
+         Assert.assertNull(text, parser.parse(text, REFERENCE));
+      }
+   }
+
+   @Test
+   public void testRejectsTimesTooFarFromTheReference()
+   {
+      RelativeTimeParser parser = new RelativeTimeParser(Locale.ENGLISH);
+      assertDuration(Year.class, -999999999999999L, parser.parse("999999999999999 years ago"));
+      Assert.assertNull(parser.parse("999999999999999 years ago", REFERENCE));
+      Assert.assertNull(parser.parse("in 999999999999999999 milliseconds", Instant.MAX));
+      Assert.assertEquals(REFERENCE.minusMillis(999999999999999999L),
+               parser.parse("999999999999999999 milliseconds ago", REFERENCE));
+   }
+
+   @Test
+   public void testParsesEveryBundledLocaleBack()
+   {
+      List<Locale> locales = new ArrayList<>(SupportedLocales.getLocales());
+      RelativeTimeParser all = new RelativeTimeParser(locales);
+      Random random = new Random(42);
+      for (Locale locale : locales) {
+         PrettyTime t = new PrettyTime(locale);
+         t.setReference(REFERENCE);
+         RelativeTimeParser parser = new RelativeTimeParser(t);
+         for (int i = 0; i < 50; i++) {
+            long offset = (long) ((random.nextBoolean() ? 1 : -1) * Math.pow(10, random.nextDouble() * 12));
+            String text = t.format(REFERENCE.plusMillis(offset));
+
+            Duration duration = parser.parse(text);
+            Assert.assertNotNull(locale + " " + text, duration);
+            Assert.assertEquals(locale + " " + text, text, t.format(duration));
+            // some locales use the same words for just now in both directions
+            if (!(duration.getUnit() instanceof JustNow))
+               Assert.assertEquals(locale + " " + text, offset < 0, duration.isInPast());
+            Assert.assertNotNull(locale + " " + text, all.parse(text));
+         }
+      }
+   }
+
+   private static void assertDuration(Class<? extends TimeUnit> unit, long quantity, Duration duration)
+   {
+      Assert.assertNotNull(duration);
+      Assert.assertEquals(unit, duration.getUnit().getClass());
+      Assert.assertEquals(quantity, duration.getQuantity());
+   }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2012 <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ocpsoft.prettytime;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.ocpsoft.prettytime.refresh.RelativeTimeRefresher;
+import org.ocpsoft.prettytime.refresh.RelativeTimeRefresher.Subscription;
+
+public class RelativeTimeRefresherTest
+{
+   private static final Instant REFERENCE = Instant.parse("2020-06-15T12:00:00Z");
+
+   private final MutableClock clock = new MutableClock(REFERENCE.toEpochMilli());
+
+   @Test
+   public void testCallbackFiresOnlyWhenTextChanges()
+   {
+      RelativeTimeRefresher refresher = new RelativeTimeRefresher(new PrettyTime(Locale.ENGLISH), clock, 1000);
+      List<String> texts = new ArrayList<>();
+      Subscription subscription = refresher.subscribe(REFERENCE.minusSeconds(10 * 60), texts::add);
+      Assert.assertEquals("10 minutes ago", subscription.getText());
+
+      clock.advance(29 * 1000);
+      Assert.assertEquals(0, refresher.tick());
+      Assert.assertTrue(texts.isEmpty());
+
+      clock.advance(2 * 1000);
+      Assert.assertEquals(1, refresher.tick());
+      Assert.assertEquals("11 minutes ago", texts.get(0));
+      Assert.assertEquals("11 minutes ago", subscription.getText());
+
+      clock.advance(59 * 1000);
+      refresher.tick();
+      Assert.assertEquals(1, texts.size());
+
+      clock.advance(1000);
+      refresher.tick();
+      Assert.assertEquals(2, texts.size());
+      Assert.assertEquals("12 minutes ago", texts.get(1));
+   }
+
+   @Test
+   public void testCancelledSubscriptionIsRemoved()
+   {
+      RelativeTimeRefresher refresher = new RelativeTimeRefresher(new PrettyTime(Locale.ENGLISH), clock, 1000);
+      List<String> texts = new ArrayList<>();
+      Subscription subscription = refresher.subscribe(REFERENCE.minusSeconds(10 * 60), texts::add);
+      refresher.subscribe(REFERENCE.minusSeconds(20 * 60), text -> {});
+      Assert.assertEquals(2, refresher.size());
+
+      subscription.cancel();
+      Assert.assertTrue(subscription.isCancelled());
+      Assert.assertNull(subscription.getNextChange());
+      Assert.assertEquals(1, refresher.size());
+
+      clock.advance(60 * 60 * 1000);
+      refresher.tick();
+      Assert.assertTrue(texts.isEmpty());
+   }
+
+   @Test
+   public void testDistantChangesCascadeDownTheWheel()
+   {
+      RelativeTimeRefresher refresher = new RelativeTimeRefresher(new PrettyTime(Locale.ENGLISH), clock, 1000);
+      List<String> texts = new ArrayList<>();
+      refresher.subscribe(REFERENCE.minusSeconds(3 * 24 * 60 * 60), texts::add);
+
+      for (int hour = 1; hour <= 12; hour++) {
+         clock.advance(60 * 60 * 1000);
+         refresher.tick();
+      }
+      Assert.assertTrue(texts.isEmpty());
+
+      clock.advance(1000);
+      refresher.tick();
+      Assert.assertEquals(1, texts.size());
+      Assert.assertEquals("4 days ago", texts.get(0));
+   }
+
+   @Test
+   public void testManySubscriptionsMatchFormatAtEveryTick()
+   {
+      RelativeTimeRefresher refresher = new RelativeTimeRefresher(new PrettyTime(Locale.ENGLISH), clock, 1000);
+      Random random = new Random(7);
+      List<Subscription> subscriptions = new ArrayList<>();
+      final List<String> delivered = new ArrayList<>();
+      for (int i = 0; i < 2000; i++) {
+         long offset = (long) ((random.nextDouble() * 2 - 1) * 3 * 60 * 60 * 1000);
+         subscriptions.add(refresher.subscribe(REFERENCE.plusMillis(offset), delivered::add));
+      }
+
+      PrettyTime t = new PrettyTime(Locale.ENGLISH);
+      for (int step = 0; step < 300; step++) {
+         clock.advance(1000 * random.nextInt(120));
+         refresher.tick();
+
+         t.setReference(Instant.ofEpochMilli(clock.millis()));
+         for (Subscription subscription : subscriptions) {
+            Assert.assertEquals(t.format(subscription.getTimestamp()), subscription.getText());
+         }
+      }
+      Assert.assertFalse(delivered.isEmpty());
+   }
+
+   @Test
+   public void testFailingCallbackDoesNotStopScheduledTicks() throws Exception
+   {
+      RelativeTimeRefresher refresher = new RelativeTimeRefresher(new PrettyTime(Locale.ENGLISH), clock, 10);
+      final List<String> texts = new CopyOnWriteArrayList<>();
+      final List<RuntimeException> errors = new CopyOnWriteArrayList<>();
+      final CountDownLatch failed = new CountDownLatch(1);
+      final CountDownLatch delivered = new CountDownLatch(2);
+      refresher.setErrorHandler(e -> {
+         errors.add(e);
+         failed.countDown();
+      });
+      refresher.subscribe(REFERENCE.minusSeconds(10 * 60), text -> {
+         throw new IllegalStateException(text);
+      });
+      refresher.subscribe(REFERENCE.minusSeconds(10 * 60), text -> {
+         texts.add(text);
+         delivered.countDown();
+      });
+
+      ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+      try {
+         refresher.start(executor);
+         clock.advance(31 * 1000);
+         Assert.assertTrue(failed.await(10, TimeUnit.SECONDS));
+
+         clock.advance(60 * 1000);
+         Assert.assertTrue(delivered.await(10, TimeUnit.SECONDS));
+         Assert.assertEquals("11 minutes ago", texts.get(0));
+         Assert.assertEquals("12 minutes ago", texts.get(1));
+         Assert.assertEquals("11 minutes ago", errors.get(0).getMessage());
+      }
+      finally {
+         refresher.close();
+         executor.shutdownNow();
+      }
+   }
+
+   private static class MutableClock extends Clock
+   {
+      private volatile long millis;
+
+      MutableClock(long millis)
+      {
+         this.millis = millis;
+      }
+
+      void advance(long delta)
+      {
+         millis += delta;
+      }
+
+      @Override
+      public long millis()
+      {
+         return millis;
+      }
+
+      @Override
+      public Instant instant()
+      {
+         return Instant.ofEpochMilli(millis);
+      }
+
+      @Override
+      public ZoneId getZone()
+      {
+         return ZoneOffset.UTC;
+      }
+
+      @Override
+      public Clock withZone(ZoneId zone)
+      {
+         return this;
+      }
+   }
+}
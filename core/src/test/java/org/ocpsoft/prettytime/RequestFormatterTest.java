@@ -0,0 +1,79 @@
+/*
+ * Copyright 2012 <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ocpsoft.prettytime;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.LongConsumer;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.ocpsoft.prettytime.web.RequestFormatter;
+
+public class RequestFormatterTest
+{
+   private static final Instant REFERENCE = Instant.parse("2020-06-15T12:00:00Z");
+
+   private final PrettyTime prettyTime = new PrettyTime(Locale.ENGLISH);
+
+   @Test
+   public void testFormatsAgainstRequestReference()
+   {
+      final List<Long> changes = new ArrayList<>();
+      Map<String, Object> request = new HashMap<>();
+      request.put(RequestFormatter.REFERENCE_ATTRIBUTE, REFERENCE);
+      request.put(RequestFormatter.FORMATTED_ATTRIBUTE, new HashMap<String, String>());
+      request.put(RequestFormatter.NEXT_CHANGE_ATTRIBUTE, (LongConsumer) changes::add);
+
+      Date then = Date.from(REFERENCE.minusSeconds(10 * 60));
+      Assert.assertEquals("10 minutes ago", RequestFormatter.format(prettyTime, then, false, request::get));
+      Assert.assertEquals(1, changes.size());
+      Assert.assertEquals(prettyTime.nextChange(then.toInstant(), REFERENCE).toEpochMilli(), (long) changes.get(0));
+
+      // repeated values are memoised and only reported once
+      Assert.assertEquals("10 minutes ago", RequestFormatter.format(prettyTime, then, false, request::get));
+      Assert.assertEquals(1, changes.size());
+      @SuppressWarnings("unchecked")
+      Map<String, String> formatted = (Map<String, String>) request.get(RequestFormatter.FORMATTED_ATTRIBUTE);
+      Assert.assertEquals("10 minutes ago", formatted.get(RequestFormatter.key(Locale.ENGLISH, then.getTime())));
+   }
+
+   @Test
+   public void testRendersTimeElement()
+   {
+      Map<String, Object> request = new HashMap<>();
+      request.put(RequestFormatter.REFERENCE_ATTRIBUTE, REFERENCE);
+
+      Date then = Date.from(REFERENCE.minusSeconds(10 * 60));
+      String html = RequestFormatter.format(prettyTime, then, true, request::get);
+      Assert.assertTrue(html, html.startsWith("<time datetime=\"2020-06-15T11:50:00Z\""));
+      Assert.assertTrue(html, html.contains("data-next-change=\""));
+      Assert.assertTrue(html, html.endsWith(">10 minutes ago</time>"));
+   }
+
+   @Test
+   public void testFormatsAgainstNowOutsideOfRequests()
+   {
+      Date then = new Date(System.currentTimeMillis() - 3 * 60 * 60 * 1000L);
+      Assert.assertEquals("3 hours ago", RequestFormatter.format(prettyTime, then, false, null));
+      Assert.assertEquals("3 hours ago", RequestFormatter.format(prettyTime, then, false, name -> null));
+   }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2012 <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ocpsoft.prettytime;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.ocpsoft.prettytime.impl.ZoneOffsetTable;
+
+public class ZoneOffsetTableTest
+{
+   private static final String[] ZONES = { "America/New_York", "Europe/London", "Australia/Lord_Howe",
+            "America/Sao_Paulo", "Pacific/Apia", "Asia/Kolkata", "UTC", "America/Havana" };
+
+   @Test
+   public void testMatchesAtZoneAroundTransitions()
+   {
+      for (String id : ZONES) {
+         ZoneId zone = ZoneId.of(id);
+         LocalDateTime first = LocalDateTime.of(2008, 1, 1, 0, 0);
+         LocalDateTime last = LocalDateTime.of(2014, 1, 1, 0, 0);
+         ZoneOffsetTable table = ZoneOffsetTable.of(zone, first, last);
+
+         // Every quarter hour covers both sides of each gap and overlap.
+         for (LocalDateTime value = first.minusDays(2); value.isBefore(last.plusDays(2)); value = value.plusMinutes(15)) {
+            LocalDateTime shifted = value.plusNanos(123456789);
+            Assert.assertEquals(id + " " + shifted, shifted.atZone(zone).toInstant().toEpochMilli(),
+                     table.toEpochMilli(shifted));
+         }
+      }
+   }
+
+   @Test
+   public void testMatchesAtStartOfDay()
+   {
+      // Havana and Sao Paulo have moved clocks forward at midnight.
+      for (String id : ZONES) {
+         ZoneId zone = ZoneId.of(id);
+         LocalDate first = LocalDate.of(2000, 1, 1);
+         LocalDate last = LocalDate.of(2020, 1, 1);
+         ZoneOffsetTable table = ZoneOffsetTable.of(zone, first, last);
+         for (LocalDate value = first.minusDays(3); value.isBefore(last.plusDays(3)); value = value.plusDays(1)) {
+            Assert.assertEquals(id + " " + value, value.atStartOfDay(zone).toInstant().toEpochMilli(),
+                     table.toEpochMilli(value));
+         }
+      }
+   }
+
+   @Test
+   public void testBatchFormatMatchesSingleFormat()
+   {
+      Instant reference = Instant.parse("2020-06-15T12:00:00Z");
+      PrettyTime t = new PrettyTime(Locale.ENGLISH);
+      t.setReference(reference);
+      Random random = new Random(3);
+      for (String id : ZONES) {
+         ZoneId zone = ZoneId.of(id);
+         LocalDateTime[] times = new LocalDateTime[500];
+         LocalDate[] dates = new LocalDate[500];
+         for (int i = 0; i < times.length; i++) {
+            long offset = (long) ((random.nextDouble() * 2 - 1) * 3 * 365 * 24 * 60 * 60);
+            times[i] = LocalDateTime.ofEpochSecond(reference.getEpochSecond() + offset, 0, ZoneOffset.UTC);
+            dates[i] = times[i].toLocalDate();
+         }
+         times[7] = null;
+
+         String[] formattedTimes = t.format(times, zone);
+         String[] formattedDates = t.format(dates, zone);
+         for (int i = 0; i < times.length; i++) {
+            Assert.assertEquals(t.format(times[i] != null ? times[i].atZone(zone) : reference.atZone(zone)),
+                     formattedTimes[i]);
+            Assert.assertEquals(t.format(dates[i], zone), formattedDates[i]);
+         }
+      }
+   }
+}
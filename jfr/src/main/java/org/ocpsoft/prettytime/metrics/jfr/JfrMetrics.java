@@ -0,0 +1,278 @@
+/*
+ * Copyright 2012 <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ocpsoft.prettytime.metrics.jfr;
+
+import java.util.ArrayDeque;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.ocpsoft.prettytime.TimeUnit;
+import org.ocpsoft.prettytime.metrics.Metrics;
+import org.ocpsoft.prettytime.metrics.PrettyTimeMetrics;
+
+import jdk.jfr.Event;
+
+/**
+ * Emits JDK Flight Recorder events for resource bundle resolution, {@link org.ocpsoft.prettytime.impl.TimeFormatProvider}
+ * construction, {@link org.ocpsoft.prettytime.PrettyTime#setLocale(Locale)} and format calls slower than a threshold.
+ * The events are in the <code>PrettyTime</code> category and named <code>org.ocpsoft.prettytime.*</code>. Each event
+ * is begun when its span {@link #started(Span) starts} and committed when it is reported, so the duration, threshold
+ * and stack trace settings of a recording apply to it as to any other event.
+ * <p>
+ * This class is in the optional <code>prettytime-jfr</code> module, which requires Java 11. Code that has to run on
+ * older JVMs registers it through {@link Metrics#registerFlightRecorder(long)}, which loads it reflectively:
+ * <p>
+ * <code>
+ * Metrics.registerFlightRecorder(1000000); // report format calls slower than 1ms
+ * </code>
+ * <p>
+ * A {@link PrettyTimeMetrics} registered before keeps receiving every event, see {@link #register(long)}.
+ * 
+ * @author <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ */
+public class JfrMetrics implements PrettyTimeMetrics
+{
+   /**
+    * System property holding the default slow format threshold in nanoseconds.
+    */
+   public static final String THRESHOLD_PROPERTY = "org.ocpsoft.prettytime.jfr.slowFormatNanos";
+
+   private static final long DEFAULT_THRESHOLD = 1000000;
+
+   /**
+    * Spans that are open on a thread after their work threw are dropped once this many are pending.
+    */
+   private static final int MAX_PENDING = 64;
+
+   private final long slowFormatNanos;
+   private final PrettyTimeMetrics delegate;
+   private final int delegateSampleInterval;
+   private final ThreadLocal<ArrayDeque<Pending>> pending = ThreadLocal.withInitial(ArrayDeque::new);
+
+   /**
+    * Create a new {@link JfrMetrics} reporting format calls slower than the value of the {@link #THRESHOLD_PROPERTY}
+    * system property, or one millisecond if not set.
+    */
+   public JfrMetrics()
+   {
+      this(Long.getLong(THRESHOLD_PROPERTY, DEFAULT_THRESHOLD));
+   }
+
+   /**
+    * Create a new {@link JfrMetrics} reporting format calls that take at least the given number of nanoseconds.
+    */
+   public JfrMetrics(long slowFormatNanos)
+   {
+      this(slowFormatNanos, null, 0);
+   }
+
+   /**
+    * Create a new {@link JfrMetrics} reporting format calls that take at least the given number of nanoseconds, and
+    * forwarding all events to the given {@link PrettyTimeMetrics}, if not <code>null</code>. Since this instance times
+    * every call, latencies are forwarded for one in every <code>delegateSampleInterval</code> calls, as if the
+    * delegate had been registered with {@link Metrics#register(PrettyTimeMetrics, int)}.
+    */
+   public JfrMetrics(long slowFormatNanos, PrettyTimeMetrics delegate, int delegateSampleInterval)
+   {
+      if (slowFormatNanos < 0)
+         throw new IllegalArgumentException("Slow format threshold must not be negative.");
+      if (delegateSampleInterval < 0)
+         throw new IllegalArgumentException("Sample interval must not be negative.");
+      this.slowFormatNanos = slowFormatNanos;
+      this.delegate = delegate;
+      this.delegateSampleInterval = delegateSampleInterval;
+   }
+
+   /**
+    * Return <code>true</code> if the running JVM provides the JDK Flight Recorder API.
+    */
+   public static boolean isAvailable()
+   {
+      try {
+         Class.forName("jdk.jfr.Event", false, JfrMetrics.class.getClassLoader());
+         return true;
+      }
+      catch (ClassNotFoundException | LinkageError e) {
+         return false;
+      }
+   }
+
+   /**
+    * Register a new {@link JfrMetrics} with the given slow format threshold in nanoseconds. Every format call is timed
+    * so that none of the slow ones are missed. The {@link PrettyTimeMetrics} registered before, if any, is wrapped and
+    * keeps receiving its events at its own sample interval. A {@link JfrMetrics} registered before is replaced.
+    */
+   public static JfrMetrics register(long slowFormatNanos)
+   {
+      PrettyTimeMetrics current = Metrics.getRegistered();
+      int interval = Metrics.getSampleInterval();
+      if (current instanceof JfrMetrics) {
+         interval = ((JfrMetrics) current).delegateSampleInterval;
+         current = ((JfrMetrics) current).delegate;
+      }
+      JfrMetrics metrics = new JfrMetrics(slowFormatNanos, current, interval);
+      Metrics.register(metrics, 1);
+      return metrics;
+   }
+
+   @Override
+   public void started(Span span)
+   {
+      boolean forward = delegate != null;
+      if (forward && span == Span.CALL) {
+         int interval = delegateSampleInterval;
+         forward = interval > 0 && (interval == 1 || ThreadLocalRandom.current().nextInt(interval) == 0);
+      }
+      if (forward)
+         delegate.started(span);
+
+      Event event;
+      switch (span) {
+      case CALL:
+         event = new SlowFormatEvent();
+         break;
+      case BUNDLE_LOAD:
+         event = new BundleLoadEvent();
+         break;
+      case FORMAT_PROVIDED:
+         event = new FormatProviderEvent();
+         break;
+      default:
+         event = new SetLocaleEvent();
+      }
+
+      ArrayDeque<Pending> spans = pending.get();
+      if (spans.size() >= MAX_PENDING)
+         spans.clear();
+      spans.push(new Pending(span, event, forward));
+      event.begin();
+   }
+
+   @Override
+   public void called(Operation operation, Locale locale, TimeUnit unit)
+   {
+      if (delegate != null)
+         delegate.called(operation, locale, unit);
+   }
+
+   @Override
+   public void latency(Operation operation, Locale locale, TimeUnit unit, long nanos)
+   {
+      Pending span = end(Span.CALL);
+      if (span == null)
+         return;
+      if (span.forward)
+         delegate.latency(operation, locale, unit, nanos);
+
+      SlowFormatEvent event = (SlowFormatEvent) span.event;
+      if (nanos >= slowFormatNanos && event.shouldCommit()) {
+         event.operation = operation.name();
+         event.locale = String.valueOf(locale);
+         event.unit = String.valueOf(unit);
+         event.commit();
+      }
+   }
+
+   @Override
+   public void bundleLoaded(Locale locale, String baseName, TimeUnit unit, long nanos)
+   {
+      Pending span = end(Span.BUNDLE_LOAD);
+      if (span == null)
+         return;
+      if (span.forward)
+         delegate.bundleLoaded(locale, baseName, unit, nanos);
+
+      BundleLoadEvent event = (BundleLoadEvent) span.event;
+      if (event.shouldCommit()) {
+         event.locale = String.valueOf(locale);
+         event.baseName = baseName;
+         event.unit = String.valueOf(unit);
+         event.commit();
+      }
+   }
+
+   @Override
+   public void formatProvided(Locale locale, TimeUnit unit, long nanos)
+   {
+      Pending span = end(Span.FORMAT_PROVIDED);
+      if (span == null)
+         return;
+      if (span.forward)
+         delegate.formatProvided(locale, unit, nanos);
+
+      FormatProviderEvent event = (FormatProviderEvent) span.event;
+      if (event.shouldCommit()) {
+         event.locale = String.valueOf(locale);
+         event.unit = String.valueOf(unit);
+         event.commit();
+      }
+   }
+
+   @Override
+   public void localeChanged(Locale locale, long nanos)
+   {
+      Pending span = end(Span.LOCALE_CHANGE);
+      if (span == null)
+         return;
+      if (span.forward)
+         delegate.localeChanged(locale, nanos);
+
+      SetLocaleEvent event = (SetLocaleEvent) span.event;
+      if (event.shouldCommit()) {
+         event.locale = String.valueOf(locale);
+         event.commit();
+      }
+   }
+
+   @Override
+   public void formatFallback(TimeUnit unit)
+   {
+      if (delegate != null)
+         delegate.formatFallback(unit);
+   }
+
+   /**
+    * Close the innermost open span of the given kind on this thread and end its event, dropping any spans opened after
+    * it whose work threw before they were reported. Return <code>null</code> if there is none, which happens when this
+    * instance was registered while the span was open.
+    */
+   private Pending end(Span span)
+   {
+      ArrayDeque<Pending> spans = pending.get();
+      Pending result;
+      do {
+         result = spans.poll();
+      }
+      while (result != null && result.span != span);
+      if (result != null)
+         result.event.end();
+      return result;
+   }
+
+   private static final class Pending
+   {
+      private final Span span;
+      private final Event event;
+      private final boolean forward;
+
+      Pending(Span span, Event event, boolean forward)
+      {
+         this.span = span;
+         this.event = event;
+         this.forward = forward;
+      }
+   }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2012 <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ocpsoft.prettytime.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A PrettyTime format call that took longer than the configured threshold.
+ *
+ * @author <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ */
+@Name("org.ocpsoft.prettytime.SlowFormat")
+@Label("Slow Format")
+@Category("PrettyTime")
+@Description("A PrettyTime format call that took longer than the configured threshold.")
+final class SlowFormatEvent extends jdk.jfr.Event
+{
+   @Label("Operation")
+   String operation;
+
+   @Label("Locale")
+   String locale;
+
+   @Label("Unit")
+   String unit;
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2012 <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ocpsoft.prettytime;
+
+import java.io.File;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.ocpsoft.prettytime.metrics.Metrics;
+import org.ocpsoft.prettytime.metrics.PrettyTimeMetrics;
+import org.ocpsoft.prettytime.metrics.jfr.JfrMetrics;
+
+public class PrettyTimeJfrMetricsTest
+{
+   @Before
+   public void setUp() throws Exception
+   {
+      Assume.assumeTrue(JfrMetrics.isAvailable());
+   }
+
+   @After
+   public void tearDown() throws Exception
+   {
+      Metrics.reset();
+   }
+
+   @Test
+   public void testEmitsEvents() throws Exception
+   {
+      File file = File.createTempFile("prettytime", ".jfr");
+      try {
+         try (Recording recording = new Recording()) {
+            recording.enable("org.ocpsoft.prettytime.BundleLoad");
+            recording.enable("org.ocpsoft.prettytime.FormatProvider");
+            recording.enable("org.ocpsoft.prettytime.SetLocale");
+            recording.enable("org.ocpsoft.prettytime.SlowFormat");
+            recording.start();
+
+            Assert.assertTrue(Metrics.registerFlightRecorder(0));
+            PrettyTime t = new PrettyTime(Instant.EPOCH);
+            t.setLocale(new Locale("cs"));
+            t.format(Instant.EPOCH.plusSeconds(60 * 60 * 3));
+
+            recording.stop();
+            recording.dump(file.toPath());
+         }
+
+         Map<String, Integer> counts = new HashMap<>();
+         List<RecordedEvent> events = RecordingFile.readAllEvents(file.toPath());
+         for (RecordedEvent event : events) {
+            counts.merge(event.getEventType().getName(), 1, Integer::sum);
+            Assert.assertFalse(event.getDuration().isNegative());
+            Assert.assertNotNull(event.getStackTrace());
+            if ("org.ocpsoft.prettytime.SlowFormat".equals(event.getEventType().getName())) {
+               Assert.assertEquals("FORMAT", event.getString("operation"));
+               Assert.assertEquals("cs", event.getString("locale"));
+               Assert.assertEquals("Hour", event.getString("unit"));
+            }
+         }
+
+         Assert.assertEquals(Integer.valueOf(24), counts.get("org.ocpsoft.prettytime.BundleLoad"));
+         Assert.assertEquals(Integer.valueOf(12), counts.get("org.ocpsoft.prettytime.FormatProvider"));
+         Assert.assertEquals(Integer.valueOf(1), counts.get("org.ocpsoft.prettytime.SetLocale"));
+         Assert.assertEquals(Integer.valueOf(1), counts.get("org.ocpsoft.prettytime.SlowFormat"));
+      }
+      finally {
+         file.delete();
+      }
+   }
+
+   @Test
+   public void testAppliesRecordingThresholds() throws Exception
+   {
+      File file = File.createTempFile("prettytime", ".jfr");
+      try {
+         try (Recording recording = new Recording()) {
+            recording.enable("org.ocpsoft.prettytime.BundleLoad");
+            recording.enable("org.ocpsoft.prettytime.SetLocale").withThreshold(java.time.Duration.ofDays(1));
+            recording.start();
+
+            JfrMetrics.register(0);
+            new PrettyTime(Instant.EPOCH).setLocale(Locale.GERMAN);
+
+            recording.stop();
+            recording.dump(file.toPath());
+         }
+
+         Map<String, Integer> counts = new HashMap<>();
+         for (RecordedEvent event : RecordingFile.readAllEvents(file.toPath())) {
+            counts.merge(event.getEventType().getName(), 1, Integer::sum);
+         }
+         Assert.assertNotNull(counts.get("org.ocpsoft.prettytime.BundleLoad"));
+         Assert.assertNull(counts.get("org.ocpsoft.prettytime.SetLocale"));
+      }
+      finally {
+         file.delete();
+      }
+   }
+
+   @Test
+   public void testKeepsPreviouslyRegisteredMetrics() throws Exception
+   {
+      final AtomicInteger calls = new AtomicInteger();
+      final AtomicInteger latencies = new AtomicInteger();
+      final AtomicInteger bundles = new AtomicInteger();
+      PrettyTimeMetrics application = new PrettyTimeMetrics() {
+         @Override
+         public void called(Operation operation, Locale locale, TimeUnit unit)
+         {
+            calls.incrementAndGet();
+         }
+
+         @Override
+         public void latency(Operation operation, Locale locale, TimeUnit unit, long nanos)
+         {
+            latencies.incrementAndGet();
+         }
+
+         @Override
+         public void bundleLoaded(Locale locale, String baseName, TimeUnit unit, long nanos)
+         {
+            bundles.incrementAndGet();
+         }
+      };
+      Metrics.register(application);
+      new PrettyTime(Instant.EPOCH).setLocale(Locale.GERMAN);
+      int loads = bundles.getAndSet(0);
+      Assert.assertTrue(loads > 0);
+
+      JfrMetrics.register(0);
+      JfrMetrics.register(0);
+      PrettyTime t = new PrettyTime(Instant.EPOCH).setLocale(Locale.GERMAN);
+      t.format(Instant.EPOCH.plusSeconds(60 * 60 * 3));
+
+      Assert.assertEquals(1, calls.get());
+      Assert.assertEquals(0, latencies.get());
+      Assert.assertEquals(loads, bundles.get());
+   }
+}
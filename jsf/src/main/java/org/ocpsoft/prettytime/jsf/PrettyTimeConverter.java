@@ -16,16 +16,21 @@
 package org.ocpsoft.prettytime.jsf;
 
 
+import javax.faces.FacesException;
 import javax.faces.component.UIComponent;
 import javax.faces.context.FacesContext;
 import javax.faces.convert.Converter;
 import javax.faces.convert.ConverterException;
 
 import org.ocpsoft.prettytime.PrettyTime;
+import org.ocpsoft.prettytime.cache.PrettyTimeCache;
+import org.ocpsoft.prettytime.i18n.SupportedLocales;
+import org.ocpsoft.prettytime.management.PrettyTimeManagement;
+import org.ocpsoft.prettytime.web.RequestFormatter;
+import org.ocpsoft.prettytime.web.TimeElement;
 
 import java.io.Serializable;
 import java.util.Date;
-import java.util.LinkedHashMap;
 import java.util.Locale;
 import java.util.Map;
 
@@ -33,19 +38,28 @@ public class PrettyTimeConverter implements Converter, Serializable
 {
     private static final long serialVersionUID = 7690470362440868260L;
 
-    private static final int MAX_CACHE_SIZE = 20;
+    /**
+     * Context parameter that sets the maximum number of cached {@link PrettyTime} instances, one per locale.
+     */
+    public static final String CACHE_SIZE_PARAM = "org.ocpsoft.prettytime.jsf.CACHE_SIZE";
 
-    // Cache PrettyTime per locale. LRU cache to prevent memory leak.
-    private static final Map<Locale, PrettyTime> PRETTY_TIME_LOCALE_MAP = new LinkedHashMap<Locale, PrettyTime>(MAX_CACHE_SIZE + 1, 1.1F, true)
-    {
-      private static final long serialVersionUID = 5093634937930600141L;
+    /**
+     * Component attribute that, when <code>true</code>, wraps the text in a <code>&lt;time&gt;</code> element with
+     * machine readable data attributes, see {@link TimeElement}.
+     */
+    public static final String TIME_ELEMENT_ATTRIBUTE = "timeElement";
 
-      @Override
-        protected boolean removeEldestEntry(Map.Entry<Locale, PrettyTime> eldest)
-        {
-            return size() > MAX_CACHE_SIZE;
-        }
-    };
+    private static final int DEFAULT_CACHE_SIZE = 20;
+
+    // Cache PrettyTime per locale. Bounded to prevent memory leak, lock-free on hits. Exposed through JMX as "jsf".
+    private static final PrettyTimeCache PRETTY_TIME_LOCALE_CACHE = new PrettyTimeCache("jsf", DEFAULT_CACHE_SIZE);
+
+    private static volatile boolean configured;
+
+    static
+    {
+        PrettyTimeManagement.registerQuietly(PRETTY_TIME_LOCALE_CACHE);
+    }
 
 
     public Object getAsObject(final FacesContext context, final UIComponent comp, final String value)
@@ -57,16 +71,47 @@ public class PrettyTimeConverter implements Converter, Serializable
     {
         if (value instanceof Date)
         {
-            // Use locale of current viewer.
-            Locale locale = context.getViewRoot().getLocale();
-            PrettyTime prettyTime;
+            // Use locale of current viewer, collapsed to the bundle it resolves to so variants share an instance.
+            configure(context);
+            Locale locale = SupportedLocales.resolve(context.getViewRoot().getLocale());
+            PrettyTime prettyTime = PRETTY_TIME_LOCALE_CACHE.get(locale);
+            // Formats against the request reference of the JSTL module's filters, if one of them is active.
+            Map<String, Object> requestMap = context.getExternalContext().getRequestMap();
+            return RequestFormatter.format(prettyTime, (Date) value, isTimeElement(comp), requestMap::get);
+        }
+        throw new ConverterException("May only be used to convert java.util.Date objects. Got: " + (value != null ? value.getClass() : "null"));
+    }
+
+    /**
+     * Whether the component asks for a <code>&lt;time&gt;</code> element through the {@link #TIME_ELEMENT_ATTRIBUTE}
+     * attribute. The component must not escape its value, for example <code>h:outputText escape="false"</code>.
+     */
+    private static boolean isTimeElement(final UIComponent comp)
+    {
+        Object value = comp != null ? comp.getAttributes().get(TIME_ELEMENT_ATTRIBUTE) : null;
+        return Boolean.TRUE.equals(value) || (value instanceof String && Boolean.parseBoolean((String) value));
+    }
+
+    /**
+     * Apply the {@link #CACHE_SIZE_PARAM} context parameter, once per class loader.
+     */
+    private static void configure(final FacesContext context)
+    {
+        if (configured)
+            return;
 
-            synchronized (PRETTY_TIME_LOCALE_MAP)
+        String size = context.getExternalContext().getInitParameter(CACHE_SIZE_PARAM);
+        if (size != null && !size.trim().isEmpty())
+        {
+            try
             {
-                prettyTime = PRETTY_TIME_LOCALE_MAP.computeIfAbsent(locale, PrettyTime::new);
+                PRETTY_TIME_LOCALE_CACHE.setMaxSize(Integer.parseInt(size.trim()));
+            }
+            catch (IllegalArgumentException e)
+            {
+                throw new FacesException("Invalid value for context parameter " + CACHE_SIZE_PARAM + ": " + size, e);
             }
-            return prettyTime.format((Date) value);
         }
-        throw new ConverterException("May only be used to convert java.util.Date objects. Got: " + (value != null ? value.getClass() : "null"));
+        configured = true;
     }
 }
@@ -0,0 +1,312 @@
+package org.ocpsoft.prettytime.jstl;
+
+import org.ocpsoft.prettytime.web.RequestFormatter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.ByteArrayOutputStream;
+import java.io.CharArrayWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.function.LongConsumer;
+
+/**
+ * A {@link ReferenceTimeFilter} that also derives HTTP caching headers from the relative times rendered during the
+ * request. {@link PrettyTimeTag} (and the JSF <code>PrettyTimeConverter</code>) report the moment at which each
+ * rendered text would change to the {@link LongConsumer} stored as {@link #NEXT_CHANGE_ATTRIBUTE}. Once the response is
+ * complete, the filter sets <code>Cache-Control: max-age</code> and <code>Expires</code> to the earliest of those
+ * moments.
+ * <p>
+ * The response body is passed through until the first text that will change is reported. If the response has not
+ * been committed by then, the rest of the body is held until the filter has added its headers, otherwise no headers
+ * are added. A body that grows beyond {@link #MAX_BUFFER_SIZE_PARAM} characters or bytes while held is released and
+ * streamed without headers, so large responses are never kept in memory as a whole. Content-Length is left to the
+ * servlet and the container.
+ * <p>
+ * Headers are only added to successful <code>GET</code> and <code>HEAD</code> responses that do not set
+ * <code>Cache-Control</code> themselves. Additional directives, such as <code>public</code>, may be given with the
+ * {@link #CACHE_CONTROL_PARAM} init parameter.
+ */
+public class FreshnessFilter extends ReferenceTimeFilter {
+
+    /**
+     * Request attribute holding a {@link LongConsumer} that collects the moment, in epoch millis, at which each text
+     * rendered during the current request changes. {@link RequestFormatter#format} reports to it.
+     */
+    public static final String NEXT_CHANGE_ATTRIBUTE = RequestFormatter.NEXT_CHANGE_ATTRIBUTE;
+
+    /**
+     * Init parameter with directives to put in front of <code>max-age</code>, for example <code>public</code>.
+     */
+    public static final String CACHE_CONTROL_PARAM = "cacheControl";
+
+    /**
+     * Init parameter with the maximum size of the held part of a response body, {@link #DEFAULT_MAX_BUFFER_SIZE} if not
+     * set.
+     */
+    public static final String MAX_BUFFER_SIZE_PARAM = "maxBufferSize";
+
+    /**
+     * The default maximum size of the held part of a response body.
+     */
+    public static final int DEFAULT_MAX_BUFFER_SIZE = 1024 * 1024;
+
+    private String directives;
+    private int maxBufferSize = DEFAULT_MAX_BUFFER_SIZE;
+
+    @Override
+    public void init(FilterConfig config) throws ServletException {
+        super.init(config);
+        String value = config.getInitParameter(CACHE_CONTROL_PARAM);
+        directives = value != null && !value.trim().isEmpty() ? value.trim() : null;
+
+        String size = config.getInitParameter(MAX_BUFFER_SIZE_PARAM);
+        if (size != null && !size.trim().isEmpty()) {
+            try {
+                maxBufferSize = Integer.parseInt(size.trim());
+            } catch (NumberFormatException e) {
+                maxBufferSize = -1;
+            }
+            if (maxBufferSize < 0) {
+                throw new ServletException("Invalid value for init parameter " + MAX_BUFFER_SIZE_PARAM + ": " + size);
+            }
+        }
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException,
+            ServletException {
+        if (!(request instanceof HttpServletRequest) || !(response instanceof HttpServletResponse)
+                || request.getAttribute(NEXT_CHANGE_ATTRIBUTE) != null || !isCacheable((HttpServletRequest) request)) {
+            super.doFilter(request, response, chain);
+            return;
+        }
+
+        HttpServletResponse httpResponse = (HttpServletResponse) response;
+        DeferredResponse deferred = new DeferredResponse(httpResponse, maxBufferSize);
+        request.setAttribute(NEXT_CHANGE_ATTRIBUTE, deferred);
+        try {
+            super.doFilter(request, deferred, chain);
+        } finally {
+            request.removeAttribute(NEXT_CHANGE_ATTRIBUTE);
+        }
+
+        if (deferred.isHolding()) {
+            long nextChange = deferred.nextChange;
+            if (deferred.status == HttpServletResponse.SC_OK && !httpResponse.isCommitted()
+                    && !httpResponse.containsHeader("Cache-Control")) {
+                long maxAge = Math.max(0, (nextChange - System.currentTimeMillis()) / 1000);
+                httpResponse.setHeader("Cache-Control", (directives != null ? directives + ", " : "") + "max-age=" + maxAge);
+                httpResponse.setDateHeader("Expires", nextChange);
+            }
+            deferred.release();
+        }
+    }
+
+    private static boolean isCacheable(HttpServletRequest request) {
+        return "GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod());
+    }
+
+    /**
+     * Passes the body through until the first change is collected, then holds it until the filter has added its
+     * headers. Errors and redirects go straight to the response and end holding.
+     */
+    private static class DeferredResponse extends HttpServletResponseWrapper implements LongConsumer {
+
+        private final int maxBufferSize;
+        private ByteArrayOutputStream bytes;
+        private CharArrayWriter chars;
+        private ServletOutputStream stream;
+        private PrintWriter writer;
+        private int status = SC_OK;
+        private long nextChange = Long.MAX_VALUE;
+        private boolean started;
+        private boolean holding;
+
+        DeferredResponse(HttpServletResponse response, int maxBufferSize) {
+            super(response);
+            this.maxBufferSize = maxBufferSize;
+        }
+
+        @Override
+        public void accept(long value) {
+            nextChange = Math.min(nextChange, value);
+            if (!started && nextChange != Long.MAX_VALUE) {
+                started = true;
+                holding = !getResponse().isCommitted();
+                bytes = new ByteArrayOutputStream();
+                chars = new CharArrayWriter();
+            }
+        }
+
+        boolean isHolding() {
+            return holding;
+        }
+
+        /**
+         * Stop holding and write the held part of the body to the response.
+         */
+        void release() throws IOException {
+            if (!holding) {
+                return;
+            }
+            holding = false;
+            if (bytes.size() > 0) {
+                bytes.writeTo(getResponse().getOutputStream());
+            }
+            if (chars.size() > 0) {
+                chars.writeTo(getResponse().getWriter());
+            }
+            bytes = null;
+            chars = null;
+        }
+
+        private void discard() {
+            holding = false;
+            bytes = null;
+            chars = null;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (writer != null) {
+                throw new IllegalStateException("getWriter() has already been called for this response.");
+            }
+            if (stream == null) {
+                final ServletOutputStream target = getResponse().getOutputStream();
+                stream = new ServletOutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        if (holding && bytes.size() < maxBufferSize) {
+                            bytes.write(b);
+                        } else {
+                            release();
+                            target.write(b);
+                        }
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        if (holding && bytes.size() + len <= maxBufferSize) {
+                            bytes.write(b, off, len);
+                        } else {
+                            release();
+                            target.write(b, off, len);
+                        }
+                    }
+
+                    @Override
+                    public void flush() throws IOException {
+                        if (!holding) {
+                            target.flush();
+                        }
+                    }
+                };
+            }
+            return stream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (stream != null) {
+                throw new IllegalStateException("getOutputStream() has already been called for this response.");
+            }
+            if (writer == null) {
+                final PrintWriter target = getResponse().getWriter();
+                writer = new PrintWriter(new Writer() {
+                    @Override
+                    public void write(char[] c, int off, int len) throws IOException {
+                        if (holding && chars.size() + len <= maxBufferSize) {
+                            chars.write(c, off, len);
+                        } else {
+                            release();
+                            target.write(c, off, len);
+                        }
+                    }
+
+                    @Override
+                    public void flush() {
+                        if (!holding) {
+                            target.flush();
+                        }
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        release();
+                        target.close();
+                    }
+                });
+            }
+            return writer;
+        }
+
+        @Override
+        public void setStatus(int status) {
+            super.setStatus(status);
+            this.status = status;
+        }
+
+        @Override
+        @SuppressWarnings("deprecation")
+        public void setStatus(int status, String message) {
+            super.setStatus(status, message);
+            this.status = status;
+        }
+
+        @Override
+        public void sendError(int status) throws IOException {
+            this.status = status;
+            discard();
+            super.sendError(status);
+        }
+
+        @Override
+        public void sendError(int status, String message) throws IOException {
+            this.status = status;
+            discard();
+            super.sendError(status, message);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            this.status = SC_FOUND;
+            discard();
+            super.sendRedirect(location);
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (!holding) {
+                super.flushBuffer();
+            }
+        }
+
+        @Override
+        public void resetBuffer() {
+            super.resetBuffer();
+            if (holding) {
+                bytes.reset();
+                chars.reset();
+            }
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            if (holding) {
+                bytes.reset();
+                chars.reset();
+            }
+            status = SC_OK;
+        }
+    }
+}
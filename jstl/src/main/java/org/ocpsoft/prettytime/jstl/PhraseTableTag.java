@@ -0,0 +1,33 @@
+package org.ocpsoft.prettytime.jstl;
+
+import org.ocpsoft.prettytime.web.PhraseTable;
+
+import javax.servlet.jsp.JspException;
+import javax.servlet.jsp.tagext.SimpleTagSupport;
+import java.io.IOException;
+
+/**
+ * Custom tag that prints the {@link PhraseTable} JSON of a locale, for example inside a <code>&lt;script&gt;</code>
+ * element, so that the page can keep the <code>&lt;time&gt;</code> elements rendered by {@link PrettyTimeTag} current.
+ */
+public class PhraseTableTag extends SimpleTagSupport {
+
+    /**
+     * The locale of the phrases.
+     */
+    private String locale;
+
+    @Override
+    public void doTag() throws JspException, IOException {
+        getJspContext().getOut().print(PhraseTable.toJson(PrettyTimeTag.getPrettyTime(locale)));
+    }
+
+    /*
+    * setters for tag attributes
+    */
+
+    public void setLocale(String locale) {
+        this.locale = locale;
+    }
+
+}
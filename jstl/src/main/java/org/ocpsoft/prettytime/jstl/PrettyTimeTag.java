@@ -2,23 +2,46 @@ package org.ocpsoft.prettytime.jstl;
 
 import org.apache.taglibs.standard.tag.common.fmt.SetLocaleSupport;
 import org.ocpsoft.prettytime.PrettyTime;
+import org.ocpsoft.prettytime.cache.PrettyTimeCache;
+import org.ocpsoft.prettytime.i18n.SupportedLocales;
+import org.ocpsoft.prettytime.management.PrettyTimeManagement;
+import org.ocpsoft.prettytime.web.RequestFormatter;
+import org.ocpsoft.prettytime.web.TimeElement;
 
+import javax.servlet.ServletRequest;
+import javax.servlet.jsp.JspContext;
 import javax.servlet.jsp.JspException;
 import javax.servlet.jsp.JspWriter;
+import javax.servlet.jsp.PageContext;
 import javax.servlet.jsp.tagext.SimpleTagSupport;
 import java.io.IOException;
 import java.util.Date;
 import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Custom tag to pretty print {@link java.util.Date} objects using <a href="http://ocpsoft.org/prettytime/">prettytime</a>.
+ * <p>
+ * All tag instances share one {@link PrettyTime} per locale, and each distinct <code>locale</code> attribute value is
+ * only parsed once, so rendering a tag does no bundle loading or locale parsing once the locale has been seen.
  */
 public class PrettyTimeTag extends SimpleTagSupport {
 
+    private static final int MAX_CACHE_SIZE = 50;
+
     /**
-     * The pretty time object.
+     * Upper bound for the parsed locale strings, which may come from request data.
      */
-    private PrettyTime prettyTime;
+    private static final int MAX_PARSED_LOCALES = 500;
+
+    // Shared PrettyTime per locale, never reconfigured after creation. Exposed through JMX as "jstl".
+    private static final PrettyTimeCache PRETTY_TIME_LOCALE_CACHE = new PrettyTimeCache("jstl", MAX_CACHE_SIZE);
+
+    private static final ConcurrentHashMap<String, Locale> PARSED_LOCALES = new ConcurrentHashMap<String, Locale>();
+
+    static {
+        PrettyTimeManagement.registerQuietly(PRETTY_TIME_LOCALE_CACHE);
+    }
 
     /**
      * The date to pretty print.
@@ -30,19 +53,47 @@ public class PrettyTimeTag extends SimpleTagSupport {
      */
     private String locale;
 
-    public PrettyTimeTag() {
-        prettyTime = new PrettyTime();
-    }
+    /**
+     * Whether to wrap the text in a <code>&lt;time&gt;</code> element, see {@link TimeElement}.
+     */
+    private boolean timeElement;
 
     @Override
     public void doTag() throws JspException, IOException {
-        if (locale != null) {
-            Locale locale = SetLocaleSupport.parseLocale(this.locale);
-            prettyTime.setLocale(locale);
-        }
+        PrettyTime prettyTime = getPrettyTime(locale);
 
         JspWriter out = getJspContext().getOut();
-        out.print(prettyTime.format(date));
+        out.print(format(prettyTime));
+    }
+
+    /**
+     * Format against the request reference captured by {@link ReferenceTimeFilter}, if it is active, and report when
+     * the text changes to {@link FreshnessFilter}.
+     */
+    private String format(PrettyTime prettyTime) {
+        JspContext context = getJspContext();
+        ServletRequest request = context instanceof PageContext ? ((PageContext) context).getRequest() : null;
+        return RequestFormatter.format(prettyTime, date, timeElement, request != null ? request::getAttribute : null);
+    }
+
+    /**
+     * Return the shared {@link PrettyTime} for the given locale attribute value, or for the default locale if it is
+     * <code>null</code>. Locales are collapsed to the bundle they resolve to, so all variants share one instance.
+     */
+    static PrettyTime getPrettyTime(String locale) {
+        return PRETTY_TIME_LOCALE_CACHE.get(SupportedLocales.resolve(locale != null ? parseLocale(locale) : null));
+    }
+
+    private static Locale parseLocale(String value) {
+        Locale result = PARSED_LOCALES.get(value);
+        if (result == null) {
+            result = SetLocaleSupport.parseLocale(value);
+            if (PARSED_LOCALES.size() >= MAX_PARSED_LOCALES) {
+                PARSED_LOCALES.clear();
+            }
+            PARSED_LOCALES.put(value, result);
+        }
+        return result;
     }
 
     /*
@@ -57,4 +108,8 @@ public class PrettyTimeTag extends SimpleTagSupport {
         this.locale = locale;
     }
 
+    public void setTimeElement(boolean timeElement) {
+        this.timeElement = timeElement;
+    }
+
 }
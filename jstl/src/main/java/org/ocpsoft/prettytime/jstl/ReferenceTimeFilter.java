@@ -0,0 +1,59 @@
+package org.ocpsoft.prettytime.jstl;
+
+import org.ocpsoft.prettytime.web.RequestFormatter;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.HashMap;
+
+/**
+ * Captures one reference {@link Instant} per request, so that every timestamp rendered by {@link PrettyTimeTag} (and
+ * the JSF <code>PrettyTimeConverter</code>) during that request is relative to the same moment. Formatted values are
+ * memoised per request, so repeated timestamps on a page are only rendered once.
+ * <p>
+ * The reference and the memo are stored as request attributes named {@link #REFERENCE_ATTRIBUTE} and
+ * {@link #FORMATTED_ATTRIBUTE}, which {@link RequestFormatter} reads. Nested dispatches keep the reference of the outermost request. Without this filter,
+ * each tag formats against the current time.
+ */
+public class ReferenceTimeFilter implements Filter {
+
+    /**
+     * Request attribute holding the reference {@link Instant} of the current request.
+     */
+    public static final String REFERENCE_ATTRIBUTE = RequestFormatter.REFERENCE_ATTRIBUTE;
+
+    /**
+     * Request attribute holding the formatted values of the current request, keyed by
+     * {@link RequestFormatter#key(Object, long)}.
+     */
+    public static final String FORMATTED_ATTRIBUTE = RequestFormatter.FORMATTED_ATTRIBUTE;
+
+    public void init(FilterConfig config) throws ServletException {
+    }
+
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException,
+            ServletException {
+        if (request.getAttribute(REFERENCE_ATTRIBUTE) != null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        request.setAttribute(REFERENCE_ATTRIBUTE, Instant.now());
+        request.setAttribute(FORMATTED_ATTRIBUTE, new HashMap<String, String>());
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            request.removeAttribute(REFERENCE_ATTRIBUTE);
+            request.removeAttribute(FORMATTED_ATTRIBUTE);
+        }
+    }
+
+    public void destroy() {
+    }
+}
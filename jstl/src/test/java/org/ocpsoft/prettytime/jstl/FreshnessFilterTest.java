@@ -0,0 +1,231 @@
+package org.ocpsoft.prettytime.jstl;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.ocpsoft.prettytime.PrettyTime;
+import org.ocpsoft.prettytime.web.RequestFormatter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.LongConsumer;
+
+public class FreshnessFilterTest {
+
+    private final FakeResponse response = new FakeResponse();
+
+    @Test
+    public void testStreamsResponsesWithoutChangingTimes() throws Exception {
+        filter(null).doFilter(request("GET"), response.proxy(), (req, resp) -> {
+            resp.getWriter().print("hello");
+            resp.flushBuffer();
+            Assert.assertTrue(response.committed);
+            Assert.assertEquals("hello", response.text.toString());
+        });
+        Assert.assertFalse(response.headers.containsKey("Cache-Control"));
+        Assert.assertEquals("hello", response.text.toString());
+    }
+
+    @Test
+    public void testSetsHeadersOnceTheFirstChangeIsCollected() throws Exception {
+        final long nextChange = System.currentTimeMillis() + 60 * 1000;
+        filter("public").doFilter(request("GET"), response.proxy(), (req, resp) -> {
+            resp.getWriter().print("a");
+            collect(req, nextChange + 60 * 1000);
+            collect(req, nextChange);
+            resp.getWriter().print("b");
+            resp.flushBuffer();
+            Assert.assertFalse(response.committed);
+            Assert.assertEquals("a", response.text.toString());
+        });
+        Assert.assertTrue(response.headers.get("Cache-Control").startsWith("public, max-age="));
+        Assert.assertEquals(String.valueOf(nextChange), response.headers.get("Expires"));
+        Assert.assertEquals("ab", response.text.toString());
+    }
+
+    @Test
+    public void testKeepsContentLengthOfHeadResponses() throws Exception {
+        filter(null).doFilter(request("HEAD"), response.proxy(), (req, resp) -> {
+            resp.setContentLength(1234);
+            collect(req, System.currentTimeMillis() + 60 * 1000);
+        });
+        Assert.assertEquals("1234", response.headers.get("Content-Length"));
+        Assert.assertTrue(response.headers.containsKey("Cache-Control"));
+    }
+
+    @Test
+    public void testStreamsBodiesLargerThanTheBuffer() throws Exception {
+        FreshnessFilter filter = filter(null, "4");
+        filter.doFilter(request("GET"), response.proxy(), (req, resp) -> {
+            collect(req, System.currentTimeMillis() + 60 * 1000);
+            ServletOutputStream out = resp.getOutputStream();
+            out.write("012".getBytes("UTF-8"));
+            Assert.assertEquals(0, response.bytes.size());
+            out.write("3456789".getBytes("UTF-8"));
+            Assert.assertEquals(10, response.bytes.size());
+        });
+        Assert.assertFalse(response.headers.containsKey("Cache-Control"));
+        Assert.assertEquals("0123456789", response.bytes.toString("UTF-8"));
+    }
+
+    @Test
+    public void testAddsNoHeadersOnceCommitted() throws Exception {
+        filter(null).doFilter(request("GET"), response.proxy(), (req, resp) -> {
+            resp.getWriter().print("a");
+            resp.flushBuffer();
+            collect(req, System.currentTimeMillis() + 60 * 1000);
+            resp.getWriter().print("b");
+            Assert.assertEquals("ab", response.text.toString());
+        });
+        Assert.assertFalse(response.headers.containsKey("Cache-Control"));
+    }
+
+    @Test
+    public void testKeepsCacheControlOfTheServlet() throws Exception {
+        filter(null).doFilter(request("GET"), response.proxy(), (req, resp) -> {
+            ((HttpServletResponse) resp).setHeader("Cache-Control", "no-store");
+            collect(req, System.currentTimeMillis() + 60 * 1000);
+        });
+        Assert.assertEquals("no-store", response.headers.get("Cache-Control"));
+        Assert.assertFalse(response.headers.containsKey("Expires"));
+    }
+
+    @Test
+    public void testIgnoresOtherMethods() throws Exception {
+        filter(null).doFilter(request("POST"), response.proxy(), (req, resp) -> {
+            Assert.assertNull(req.getAttribute(FreshnessFilter.NEXT_CHANGE_ATTRIBUTE));
+            Assert.assertNotNull(req.getAttribute(ReferenceTimeFilter.REFERENCE_ATTRIBUTE));
+        });
+    }
+
+    @Test
+    public void testCollectsChangesOfFormattedTexts() throws Exception {
+        filter(null).doFilter(request("GET"), response.proxy(), (req, resp) -> {
+            Date then = new Date(System.currentTimeMillis() - 10 * 60 * 1000);
+            resp.getWriter().print(RequestFormatter.format(new PrettyTime(Locale.ENGLISH), then, false,
+                    ((HttpServletRequest) req)::getAttribute));
+        });
+        Assert.assertTrue(response.headers.get("Cache-Control").startsWith("max-age="));
+        Assert.assertEquals("10 minutes ago", response.text.toString());
+    }
+
+    /**
+     * Report a change the way {@link RequestFormatter} does.
+     */
+    private static void collect(ServletRequest request, long nextChange) {
+        ((LongConsumer) request.getAttribute(FreshnessFilter.NEXT_CHANGE_ATTRIBUTE)).accept(nextChange);
+    }
+
+    private static FreshnessFilter filter(String cacheControl) throws Exception {
+        return filter(cacheControl, null);
+    }
+
+    private static FreshnessFilter filter(String cacheControl, String maxBufferSize) throws Exception {
+        final Map<String, String> params = new HashMap<String, String>();
+        params.put(FreshnessFilter.CACHE_CONTROL_PARAM, cacheControl);
+        params.put(FreshnessFilter.MAX_BUFFER_SIZE_PARAM, maxBufferSize);
+        FreshnessFilter filter = new FreshnessFilter();
+        filter.init(fake(FilterConfig.class, (proxy, method, args) ->
+                "getInitParameter".equals(method.getName()) ? params.get(args[0]) : null));
+        return filter;
+    }
+
+    private static HttpServletRequest request(final String method) {
+        final Map<String, Object> attributes = new HashMap<String, Object>();
+        return fake(HttpServletRequest.class, (proxy, m, args) -> {
+            switch (m.getName()) {
+                case "getMethod":
+                    return method;
+                case "getAttribute":
+                    return attributes.get(args[0]);
+                case "setAttribute":
+                    return attributes.put((String) args[0], args[1]);
+                case "removeAttribute":
+                    return attributes.remove(args[0]);
+                default:
+                    return defaultValue(m);
+            }
+        });
+    }
+
+    private static <T> T fake(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, handler));
+    }
+
+    private static Object defaultValue(Method method) {
+        Class<?> type = method.getReturnType();
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        return null;
+    }
+
+    /**
+     * A response that commits when flushed, after which headers can no longer be changed.
+     */
+    private static class FakeResponse implements InvocationHandler {
+
+        private final Map<String, String> headers = new HashMap<String, String>();
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final StringWriter text = new StringWriter();
+        private final PrintWriter writer = new PrintWriter(text);
+        private boolean committed;
+
+        HttpServletResponse proxy() {
+            return fake(HttpServletResponse.class, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            switch (method.getName()) {
+                case "setHeader":
+                case "setDateHeader":
+                    if (!committed) {
+                        headers.put((String) args[0], String.valueOf(args[1]));
+                    }
+                    return null;
+                case "setContentLength":
+                    if (!committed) {
+                        headers.put("Content-Length", String.valueOf(args[0]));
+                    }
+                    return null;
+                case "containsHeader":
+                    return headers.containsKey(args[0]);
+                case "isCommitted":
+                    return committed;
+                case "flushBuffer":
+                    committed = true;
+                    return null;
+                case "getWriter":
+                    return writer;
+                case "getOutputStream":
+                    return new ServletOutputStream() {
+                        @Override
+                        public void write(int b) {
+                            bytes.write(b);
+                        }
+                    };
+                case "getCharacterEncoding":
+                    return "UTF-8";
+                default:
+                    return defaultValue(method);
+            }
+        }
+    }
+}
@@ -0,0 +1,428 @@
+package org.ocpsoft.prettytime.nlp;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.ocpsoft.prettytime.nlp.parse.DateGroup;
+
+/**
+ * Extracts {@link DateGroup} instances from text of any size, reading it in bounded chunks. Chunks end at line breaks,
+ * so results match parsing the whole text at once with {@link PrettyTimeParser#parseSyntax(String, Date)}, except for
+ * expressions that continue from one chunk onto the next line. No chunk is longer than the chunk size: a chunk ends
+ * before the first line that does not fit into it, and only lines longer than the chunk size are split, preferably
+ * after the end of a sentence, otherwise after whitespace.
+ * <p>
+ * The extracted {@link DateGroup} instances report their line in the whole text, and their position in that line, as
+ * {@link PrettyTimeParser#parseSyntax(String)} would. {@link ExtractedDateGroup#getLineOffset()} is the character
+ * offset of the line in the whole text. <code>\n</code>, <code>\r\n</code> and <code>\r</code> all end a line.
+ * <p>
+ * <b>Usage:</b>
+ * <p>
+ * <code>
+ * try (Stream&lt;ExtractedDateGroup&gt; groups = new DateExtractor(parser).stream(path, UTF_8)) {<br/>
+ * &nbsp;&nbsp;groups.forEach(...);<br/>
+ * }
+ * </code>
+ *
+ * @author <a href="mailto:lincolnbaxter@gmail.com>Lincoln Baxter, III</a>
+ */
+public class DateExtractor
+{
+   /**
+    * The default maximum number of characters parsed at once.
+    */
+   public static final int DEFAULT_CHUNK_SIZE = 16 * 1024;
+
+   private final PrettyTimeParser parser;
+   private final Date reference;
+   private final int chunkSize;
+
+   /**
+    * Create a new {@link DateExtractor} using the given {@link PrettyTimeParser}, parsing against the time each
+    * extraction starts, in chunks of {@link #DEFAULT_CHUNK_SIZE}.
+    */
+   public DateExtractor(PrettyTimeParser parser)
+   {
+      this(parser, null, DEFAULT_CHUNK_SIZE);
+   }
+
+   /**
+    * Create a new {@link DateExtractor} using the given {@link PrettyTimeParser}, parsing against the given reference
+    * date, or the time each extraction starts if it is <code>null</code>, in chunks of the given number of characters.
+    */
+   public DateExtractor(PrettyTimeParser parser, Date reference, int chunkSize)
+   {
+      this.parser = Objects.requireNonNull(parser, "PrettyTimeParser must not be null.");
+      this.reference = reference != null ? new Date(reference.getTime()) : null;
+      if (chunkSize < 2)
+         throw new IllegalArgumentException("Chunk size must be at least 2: " + chunkSize);
+      this.chunkSize = chunkSize;
+   }
+
+   /**
+    * Read the given {@link Reader} to its end, passing each extracted {@link DateGroup} to the given {@link Consumer}
+    * as soon as the chunk containing it has been parsed. The {@link Reader} is not closed.
+    */
+   public void extract(Reader reader, Consumer<? super ExtractedDateGroup> consumer) throws IOException
+   {
+      extract(reader, consumer, null);
+   }
+
+   /**
+    * Extract as {@link #extract(Reader, Consumer)} does, but stop before parsing the next chunk once the given
+    * {@link BooleanSupplier}, if any, returns <code>true</code>. Return whether the {@link Reader} was read to its end.
+    */
+   boolean extract(Reader reader, Consumer<? super ExtractedDateGroup> consumer, BooleanSupplier stop)
+            throws IOException
+   {
+      Objects.requireNonNull(consumer, "Consumer must not be null.");
+      Chunks chunks = new Chunks(reader);
+      Date now = getReference();
+      Chunk chunk;
+      while ((chunk = chunks.read()) != null) {
+         if (stop != null && stop.getAsBoolean())
+            return false;
+         for (ExtractedDateGroup group : parse(chunk, now)) {
+            consumer.accept(group);
+         }
+      }
+      return true;
+   }
+
+   /**
+    * Return an {@link Iterator} over the {@link DateGroup} instances extracted from the given {@link Reader}, which is
+    * read lazily, one chunk at a time. An {@link IOException} is rethrown as {@link UncheckedIOException}. The
+    * {@link Reader} is not closed.
+    */
+   public Iterator<ExtractedDateGroup> iterator(Reader reader)
+   {
+      final Chunks chunks = new Chunks(reader);
+      final Date now = getReference();
+      return new Iterator<ExtractedDateGroup>() {
+         private final ArrayDeque<ExtractedDateGroup> pending = new ArrayDeque<ExtractedDateGroup>();
+         private boolean done;
+
+         @Override
+         public boolean hasNext()
+         {
+            while (pending.isEmpty() && !done) {
+               try {
+                  Chunk chunk = chunks.read();
+                  if (chunk == null)
+                     done = true;
+                  else
+                     pending.addAll(Arrays.asList(parse(chunk, now)));
+               }
+               catch (IOException e) {
+                  throw new UncheckedIOException(e);
+               }
+            }
+            return !pending.isEmpty();
+         }
+
+         @Override
+         public ExtractedDateGroup next()
+         {
+            if (!hasNext())
+               throw new NoSuchElementException();
+            return pending.poll();
+         }
+      };
+   }
+
+   /**
+    * Return a sequential {@link Stream} of the {@link DateGroup} instances extracted from the given {@link Reader},
+    * which is read lazily and closed when the {@link Stream} is closed.
+    */
+   public Stream<ExtractedDateGroup> stream(final Reader reader)
+   {
+      Spliterator<ExtractedDateGroup> spliterator = Spliterators.spliteratorUnknownSize(iterator(reader),
+               Spliterator.ORDERED | Spliterator.NONNULL);
+      return StreamSupport.stream(spliterator, false).onClose(new Runnable() {
+         @Override
+         public void run()
+         {
+            try {
+               reader.close();
+            }
+            catch (IOException e) {
+               throw new UncheckedIOException(e);
+            }
+         }
+      });
+   }
+
+   /**
+    * Return a sequential {@link Stream} of the {@link DateGroup} instances extracted from the file at the given
+    * {@link Path}, decoded with the given {@link Charset}. The file is read lazily and closed when the {@link Stream}
+    * is closed.
+    */
+   public Stream<ExtractedDateGroup> stream(Path path, Charset charset) throws IOException
+   {
+      return stream(Files.newBufferedReader(path, charset));
+   }
+
+   private Date getReference()
+   {
+      return reference != null ? reference : new Date();
+   }
+
+   private ExtractedDateGroup[] parse(Chunk chunk, Date now)
+   {
+      List<DateGroup> groups = parser.parseSyntax(chunk.text, now);
+      ExtractedDateGroup[] result = new ExtractedDateGroup[groups.size()];
+      for (int i = 0; i < result.length; i++) {
+         DateGroup group = groups.get(i);
+         int line = group.getLine() - 1;
+         result[i] = new ExtractedDateGroup(group, chunk.firstLine + line, chunk.lineOffsets[line],
+                  group.getPosition() + (line == 0 ? chunk.column : 0));
+      }
+      return result;
+   }
+
+   /**
+    * A {@link DateGroup} extracted by a {@link DateExtractor}, positioned in the whole text.
+    */
+   public static final class ExtractedDateGroup implements DateGroup
+   {
+      private final DateGroup group;
+      private final long line;
+      private final long lineOffset;
+      private final int position;
+
+      ExtractedDateGroup(DateGroup group, long line, long lineOffset, int position)
+      {
+         this.group = group;
+         this.line = line;
+         this.lineOffset = lineOffset;
+         this.position = position;
+      }
+
+      /**
+       * Get the line of the whole text in which this {@link DateGroup} was found, or {@link Integer#MAX_VALUE} if it
+       * does not fit into an <code>int</code>. See {@link #getLineNumber()}.
+       */
+      @Override
+      public int getLine()
+      {
+         return (int) Math.min(line, Integer.MAX_VALUE);
+      }
+
+      /**
+       * Get the line of the whole text in which this {@link DateGroup} was found, starting at 1.
+       */
+      public long getLineNumber()
+      {
+         return line;
+      }
+
+      /**
+       * Get the offset in characters of the start of the line in which this {@link DateGroup} was found, from the
+       * start of the whole text.
+       */
+      public long getLineOffset()
+      {
+         return lineOffset;
+      }
+
+      @Override
+      public int getPosition()
+      {
+         return position;
+      }
+
+      @Override
+      public String getText()
+      {
+         return group.getText();
+      }
+
+      @Override
+      public List<Date> getDates()
+      {
+         return group.getDates();
+      }
+
+      @Override
+      public boolean isRecurring()
+      {
+         return group.isRecurring();
+      }
+
+      @Override
+      public Date getRecursUntil()
+      {
+         return group.getRecursUntil();
+      }
+
+      @Override
+      public long getRecurInterval()
+      {
+         return group.getRecurInterval();
+      }
+
+      @Override
+      public String toString()
+      {
+         return "ExtractedDateGroup [line=" + line + ", position=" + position + ", text=" + getText() + ", dates="
+                  + getDates() + "]";
+      }
+   }
+
+   /**
+    * Text of whole lines joined by <code>\n</code>, or a segment of a single long line starting at the given column.
+    */
+   private static final class Chunk
+   {
+      private final String text;
+      private final long firstLine;
+      private final long[] lineOffsets;
+      private final int column;
+
+      Chunk(String text, long firstLine, long[] lineOffsets, int column)
+      {
+         this.text = text;
+         this.firstLine = firstLine;
+         this.lineOffsets = lineOffsets;
+         this.column = column;
+      }
+   }
+
+   private final class Chunks
+   {
+      private final Reader reader;
+      private final StringBuilder chunk = new StringBuilder();
+      private long[] chunkOffsets = new long[16];
+      private int chunkLines;
+      private long chunkFirstLine = 1;
+      private int chunkColumn;
+
+      private final StringBuilder line = new StringBuilder();
+      private long lineNumber = 1;
+      private long lineOffset;
+      private int lineColumn;
+
+      private long offset;
+      private boolean afterCarriageReturn;
+      private boolean eof;
+
+      Chunks(Reader reader)
+      {
+         Objects.requireNonNull(reader, "Reader must not be null.");
+         this.reader = reader instanceof BufferedReader ? reader : new BufferedReader(reader);
+      }
+
+      /**
+       * Return the next chunk of text, or <code>null</code> at the end of the text.
+       */
+      Chunk read() throws IOException
+      {
+         while (!eof) {
+            int c = reader.read();
+            if (c < 0) {
+               eof = true;
+               if (line.length() > 0 || lineColumn > 0)
+                  endLine();
+               break;
+            }
+
+            offset++;
+            if (c == '\n' && afterCarriageReturn) {
+               afterCarriageReturn = false;
+               lineOffset = offset;
+               continue;
+            }
+            afterCarriageReturn = c == '\r';
+            if (c == '\n' || c == '\r') {
+               endLine();
+               lineOffset = offset;
+               if (chunk.length() >= chunkSize)
+                  return flush();
+            }
+            else {
+               line.append((char) c);
+               if (chunkLines > 0 && chunk.length() + 1 + line.length() > chunkSize)
+                  return flush();
+               if (line.length() > chunkSize)
+                  return splitLine();
+            }
+         }
+         return chunkLines > 0 ? flush() : null;
+      }
+
+      private void endLine()
+      {
+         if (chunkLines == 0) {
+            chunkFirstLine = lineNumber;
+            chunkColumn = lineColumn;
+         }
+         else {
+            chunk.append('\n');
+         }
+         if (chunkLines == chunkOffsets.length)
+            chunkOffsets = Arrays.copyOf(chunkOffsets, chunkLines * 2);
+         chunkOffsets[chunkLines++] = lineOffset;
+         chunk.append(line);
+
+         line.setLength(0);
+         lineNumber++;
+         lineColumn = 0;
+      }
+
+      private Chunk flush()
+      {
+         Chunk result = new Chunk(chunk.toString(), chunkFirstLine, Arrays.copyOf(chunkOffsets, chunkLines),
+                  chunkColumn);
+         chunk.setLength(0);
+         chunkLines = 0;
+         return result;
+      }
+
+      /**
+       * Emit the start of the current line, which has become too long, up to the last sentence end or whitespace
+       * within the chunk size.
+       */
+      private Chunk splitLine()
+      {
+         int cut = findCut();
+         Chunk result = new Chunk(line.substring(0, cut), lineNumber, new long[] { lineOffset }, lineColumn);
+         line.delete(0, cut);
+         lineColumn += cut;
+         return result;
+      }
+
+      private int findCut()
+      {
+         int end = Math.min(line.length(), chunkSize);
+         int whitespace = -1;
+         for (int i = end - 1; i > end / 2; i--) {
+            if (Character.isWhitespace(line.charAt(i))) {
+               char previous = line.charAt(i - 1);
+               if (previous == '.' || previous == '!' || previous == '?')
+                  return i + 1;
+               if (whitespace < 0)
+                  whitespace = i + 1;
+            }
+         }
+         return whitespace > 0 ? whitespace : end;
+      }
+   }
+}
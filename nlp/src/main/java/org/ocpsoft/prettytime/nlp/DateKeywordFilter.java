@@ -0,0 +1,100 @@
+package org.ocpsoft.prettytime.nlp;
+
+/**
+ * Decides cheaply whether a text may contain a date or time expression, so that text that cannot is not handed to
+ * natty at all. Every expression natty recognizes contains a digit or starts a word with one of a few keywords: month
+ * and day names and their abbreviations, relative days ("today", "tonight", "now"), times of day, periods ("week",
+ * "hour"), seasons, holidays and spelled out numbers, as listed in {@link Vocabulary}. The keywords are held in a
+ * character trie and matched as prefixes at the start of words, ignoring case, in a single scan of the text.
+ * <p>
+ * The filter errs on the side of caution: it may accept text without a date ("nowhere", "several"), but never rejects
+ * text natty would find one in.
+ *
+ * @author <a href="mailto:lincolnbaxter@gmail.com>Lincoln Baxter, III</a>
+ */
+final class DateKeywordFilter
+{
+   private static final Node ROOT = new Node();
+
+   static {
+      for (String[] keywords : new String[][] { Vocabulary.MONTHS, Vocabulary.DAYS, Vocabulary.RELATIVE_DAYS,
+               Vocabulary.TIMES_OF_DAY, Vocabulary.PERIODS, Vocabulary.SEASONS, Vocabulary.HOLIDAYS,
+               Vocabulary.NUMBERS, Vocabulary.TENS, Vocabulary.ORDINALS,
+               { Vocabulary.ZERO, Vocabulary.HUNDRED } }) {
+         for (String keyword : keywords) {
+            add(keyword);
+         }
+      }
+   }
+
+   private DateKeywordFilter()
+   {}
+
+   /**
+    * Return <code>false</code> if the given text cannot contain a date or time expression.
+    */
+   static boolean mayContainDate(CharSequence text)
+   {
+      int length = text.length();
+      boolean wordStart = true;
+      for (int i = 0; i < length; i++) {
+         char c = text.charAt(i);
+         if (c >= '0' && c <= '9')
+            return true;
+
+         if (wordStart && matches(text, i))
+            return true;
+         wordStart = !Character.isLetter(c);
+      }
+      return false;
+   }
+
+   private static void add(String keyword)
+   {
+      if (keyword.isEmpty())
+         return;
+
+      Node node = ROOT;
+      for (int i = 0; i < keyword.length(); i++) {
+         node = node.child(keyword.charAt(i), true);
+      }
+      node.keyword = true;
+   }
+
+   private static boolean matches(CharSequence text, int start)
+   {
+      Node node = ROOT;
+      for (int i = start; i < text.length(); i++) {
+         node = node.child(Character.toLowerCase(text.charAt(i)), false);
+         if (node == null)
+            return false;
+         if (node.keyword)
+            return true;
+      }
+      return false;
+   }
+
+   private static final class Node
+   {
+      private static final int SIZE = 'z' - 'a' + 2;
+
+      private final Node[] children = new Node[SIZE];
+      private boolean keyword;
+
+      Node child(char key, boolean create)
+      {
+         int index;
+         if (key >= 'a' && key <= 'z')
+            index = key - 'a';
+         else if (key == '-')
+            index = SIZE - 1;
+         else
+            return null;
+
+         Node child = children[index];
+         if (child == null && create)
+            child = children[index] = new Node();
+         return child;
+      }
+   }
+}
@@ -0,0 +1,112 @@
+package org.ocpsoft.prettytime.nlp;
+
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Replaces spelled out numbers (e.g. "twenty one") with their digits in a single scan of the input. Phrases are held
+ * in a character trie and only matched as whole words, where a word is a run of letters, digits and underscores. When
+ * several phrases start at the same word, the longest one is replaced.
+ *
+ * @author <a href="mailto:lincolnbaxter@gmail.com>Lincoln Baxter, III</a>
+ */
+final class NumberWordTranslator
+{
+   private final Node root = new Node();
+
+   /**
+    * Create a new {@link NumberWordTranslator} replacing each key of the given {@link Map} with its value.
+    */
+   NumberWordTranslator(Map<String, String> translations)
+   {
+      for (Entry<String, String> entry : translations.entrySet()) {
+         Node node = root;
+         String phrase = entry.getKey();
+         for (int i = 0; i < phrase.length(); i++) {
+            node = node.child(phrase.charAt(i), true);
+         }
+         node.value = entry.getValue();
+      }
+   }
+
+   /**
+    * Return the given language with all spelled out numbers replaced by their digits.
+    */
+   String translate(String language)
+   {
+      StringBuilder result = null;
+      int copied = 0;
+      int length = language.length();
+      int i = 0;
+      while (i < length) {
+         if (!isWord(language.charAt(i))) {
+            i++;
+            continue;
+         }
+
+         String value = null;
+         int end = -1;
+         Node node = root;
+         for (int j = i; j < length && node != null; j++) {
+            node = node.child(language.charAt(j), false);
+            if (node != null && node.value != null && (j + 1 == length || !isWord(language.charAt(j + 1)))) {
+               value = node.value;
+               end = j + 1;
+            }
+         }
+
+         if (value != null) {
+            if (result == null)
+               result = new StringBuilder(length);
+            result.append(language, copied, i).append(value);
+            copied = end;
+            i = end;
+         }
+         else {
+            while (i < length && isWord(language.charAt(i))) {
+               i++;
+            }
+         }
+      }
+
+      if (result == null)
+         return language;
+      return result.append(language, copied, length).toString();
+   }
+
+   /**
+    * The characters that make up a word, as for the <code>\b</code> boundary of {@link java.util.regex.Pattern}.
+    */
+   private static boolean isWord(char c)
+   {
+      return c == '_' || Character.isLetterOrDigit(c);
+   }
+
+   private static final class Node
+   {
+      private char[] keys = new char[0];
+      private Node[] children = new Node[0];
+      private String value;
+
+      Node child(char key, boolean create)
+      {
+         for (int i = 0; i < keys.length; i++) {
+            if (keys[i] == key)
+               return children[i];
+         }
+         if (!create)
+            return null;
+
+         int size = keys.length;
+         char[] newKeys = new char[size + 1];
+         Node[] newChildren = new Node[size + 1];
+         System.arraycopy(keys, 0, newKeys, 0, size);
+         System.arraycopy(children, 0, newChildren, 0, size);
+         newKeys[size] = key;
+         newChildren[size] = new Node();
+         keys = newKeys;
+         children = newChildren;
+         return newChildren[size];
+      }
+   }
+}
@@ -0,0 +1,181 @@
+package org.ocpsoft.prettytime.nlp;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Limits on a single call to {@link PrettyTimeParser#parseBounded(String, Date, ParseOptions)}: the maximum length and
+ * number of whitespace separated tokens of the input, a timeout and a deadline, a cancellation signal, and the size of
+ * the chunks that the input is parsed in. Instances are immutable; each <code>with</code> method returns a copy with
+ * one limit changed, starting from {@link #DEFAULT}.
+ * <p>
+ * The timeout, deadline and cancellation are checked before each chunk is parsed and once after the last. No chunk is
+ * longer than the chunk size, so a parse ends at most the time it takes to parse that many characters after them, and
+ * one that passed them during its last chunk is reported as {@link ParseOutcome.Status#TIMED_OUT} or
+ * {@link ParseOutcome.Status#CANCELLED}, with all groups found. A smaller chunk size tightens that bound, at the cost
+ * of missing expressions that span two chunks.
+ *
+ * @author <a href="mailto:lincolnbaxter@gmail.com>Lincoln Baxter, III</a>
+ */
+public final class ParseOptions
+{
+   /**
+    * The default maximum number of characters parsed at once, which natty parses in well under a second.
+    */
+   public static final int DEFAULT_CHUNK_SIZE = 1024;
+
+   /**
+    * No limits other than chunks of {@link #DEFAULT_CHUNK_SIZE}.
+    */
+   public static final ParseOptions DEFAULT = new ParseOptions(Integer.MAX_VALUE, Integer.MAX_VALUE, Long.MAX_VALUE,
+            null, null, DEFAULT_CHUNK_SIZE);
+
+   private final int maxLength;
+   private final int maxTokens;
+   private final long timeoutNanos;
+   private final Date deadline;
+   private final BooleanSupplier cancellation;
+   private final int chunkSize;
+
+   private ParseOptions(int maxLength, int maxTokens, long timeoutNanos, Date deadline, BooleanSupplier cancellation,
+            int chunkSize)
+   {
+      this.maxLength = maxLength;
+      this.maxTokens = maxTokens;
+      this.timeoutNanos = timeoutNanos;
+      this.deadline = deadline;
+      this.cancellation = cancellation;
+      this.chunkSize = chunkSize;
+   }
+
+   /**
+    * Return a copy of these options that rejects input of more than the given number of characters without parsing
+    * it.
+    */
+   public ParseOptions withMaxLength(int maxLength)
+   {
+      if (maxLength < 0)
+         throw new IllegalArgumentException("Maximum length must not be negative: " + maxLength);
+      return new ParseOptions(maxLength, maxTokens, timeoutNanos, deadline, cancellation, chunkSize);
+   }
+
+   /**
+    * Return a copy of these options that rejects input of more than the given number of whitespace separated tokens
+    * without parsing it.
+    */
+   public ParseOptions withMaxTokens(int maxTokens)
+   {
+      if (maxTokens < 0)
+         throw new IllegalArgumentException("Maximum number of tokens must not be negative: " + maxTokens);
+      return new ParseOptions(maxLength, maxTokens, timeoutNanos, deadline, cancellation, chunkSize);
+   }
+
+   /**
+    * Return a copy of these options that stops parsing once the given time has passed since the parse started.
+    */
+   public ParseOptions withTimeout(long timeout, TimeUnit unit)
+   {
+      if (timeout < 0)
+         throw new IllegalArgumentException("Timeout must not be negative: " + timeout);
+      return new ParseOptions(maxLength, maxTokens, unit.toNanos(timeout), deadline, cancellation, chunkSize);
+   }
+
+   /**
+    * Return a copy of these options that stops parsing at the given time, or never if it is <code>null</code>.
+    */
+   public ParseOptions withDeadline(Date deadline)
+   {
+      return new ParseOptions(maxLength, maxTokens, timeoutNanos,
+               deadline != null ? new Date(deadline.getTime()) : null, cancellation, chunkSize);
+   }
+
+   /**
+    * Return a copy of these options that stops parsing once the given {@link BooleanSupplier} returns
+    * <code>true</code>, or only on interruption if it is <code>null</code>. Parsing also stops when the parsing thread
+    * is interrupted, whose interrupted status is left set.
+    */
+   public ParseOptions withCancellation(BooleanSupplier cancellation)
+   {
+      return new ParseOptions(maxLength, maxTokens, timeoutNanos, deadline, cancellation, chunkSize);
+   }
+
+   /**
+    * Return a copy of these options that parses input longer than the given number of characters in chunks, see
+    * {@link DateExtractor}.
+    */
+   public ParseOptions withChunkSize(int chunkSize)
+   {
+      if (chunkSize < 2)
+         throw new IllegalArgumentException("Chunk size must be at least 2: " + chunkSize);
+      return new ParseOptions(maxLength, maxTokens, timeoutNanos, deadline, cancellation, chunkSize);
+   }
+
+   /**
+    * Get the maximum number of characters of the input, {@link Integer#MAX_VALUE} if it is not limited.
+    */
+   public int getMaxLength()
+   {
+      return maxLength;
+   }
+
+   /**
+    * Get the maximum number of whitespace separated tokens of the input, {@link Integer#MAX_VALUE} if it is not
+    * limited.
+    */
+   public int getMaxTokens()
+   {
+      return maxTokens;
+   }
+
+   /**
+    * Get the timeout in the given {@link TimeUnit}, or {@link Long#MAX_VALUE} if there is none.
+    */
+   public long getTimeout(TimeUnit unit)
+   {
+      return timeoutNanos == Long.MAX_VALUE ? Long.MAX_VALUE : unit.convert(timeoutNanos, TimeUnit.NANOSECONDS);
+   }
+
+   /**
+    * Get the deadline, or <code>null</code> if there is none.
+    */
+   public Date getDeadline()
+   {
+      return deadline != null ? new Date(deadline.getTime()) : null;
+   }
+
+   /**
+    * Get the cancellation signal, or <code>null</code> if there is none.
+    */
+   public BooleanSupplier getCancellation()
+   {
+      return cancellation;
+   }
+
+   /**
+    * Get the maximum number of characters parsed at once.
+    */
+   public int getChunkSize()
+   {
+      return chunkSize;
+   }
+
+   /**
+    * Return the number of nanoseconds from now until the earlier of the timeout and the deadline, or
+    * {@link Long#MAX_VALUE} if there is neither.
+    */
+   long remainingNanos()
+   {
+      if (deadline == null)
+         return timeoutNanos;
+      long untilDeadline = TimeUnit.MILLISECONDS.toNanos(Math.max(0, deadline.getTime() - System.currentTimeMillis()));
+      return Math.min(timeoutNanos, untilDeadline);
+   }
+
+   @Override
+   public String toString()
+   {
+      return "ParseOptions [maxLength=" + maxLength + ", maxTokens=" + maxTokens + ", timeoutNanos=" + timeoutNanos
+               + ", deadline=" + deadline + ", chunkSize=" + chunkSize + "]";
+   }
+}
@@ -0,0 +1,97 @@
+package org.ocpsoft.prettytime.nlp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.ocpsoft.prettytime.nlp.parse.DateGroup;
+
+/**
+ * The outcome of a parse bounded by {@link ParseOptions}, see
+ * {@link PrettyTimeParser#parseBounded(String, Date, ParseOptions)}. Holds why the parse ended and the
+ * {@link DateGroup} instances found until then, which are all of them only if it {@link #isCompleted()}.
+ *
+ * @author <a href="mailto:lincolnbaxter@gmail.com>Lincoln Baxter, III</a>
+ */
+public final class ParseOutcome
+{
+   /**
+    * Why a bounded parse ended.
+    */
+   public enum Status
+   {
+      /**
+       * The whole input was parsed.
+       */
+      COMPLETED,
+      /**
+       * The timeout or deadline passed before the whole input was parsed, or while its last chunk was parsed.
+       */
+      TIMED_OUT,
+      /**
+       * The parse was cancelled, or its thread interrupted, before the whole input was parsed, or while its last chunk
+       * was parsed.
+       */
+      CANCELLED,
+      /**
+       * The input was not parsed because it has more characters than allowed.
+       */
+      TOO_LONG,
+      /**
+       * The input was not parsed because it has more tokens than allowed.
+       */
+      TOO_MANY_TOKENS
+   }
+
+   private final Status status;
+   private final List<DateGroup> groups;
+
+   ParseOutcome(Status status, List<DateGroup> groups)
+   {
+      this.status = status;
+      this.groups = Collections.unmodifiableList(groups);
+   }
+
+   /**
+    * Get why the parse ended.
+    */
+   public Status getStatus()
+   {
+      return status;
+   }
+
+   /**
+    * Return <code>true</code> if the whole input was parsed.
+    */
+   public boolean isCompleted()
+   {
+      return status == Status.COMPLETED;
+   }
+
+   /**
+    * Get the {@link DateGroup} instances found before the parse ended, in the order of the input.
+    */
+   public List<DateGroup> getDateGroups()
+   {
+      return groups;
+   }
+
+   /**
+    * Get the {@link Date} instances of all {@link #getDateGroups()}.
+    */
+   public List<Date> getDates()
+   {
+      List<Date> result = new ArrayList<Date>();
+      for (DateGroup group : groups) {
+         result.addAll(group.getDates());
+      }
+      return result;
+   }
+
+   @Override
+   public String toString()
+   {
+      return "ParseOutcome [status=" + status + ", groups=" + groups + "]";
+   }
+}
@@ -0,0 +1,60 @@
+package org.ocpsoft.prettytime.nlp;
+
+/**
+ * The outcome of parsing a single text in a batch, see {@link PrettyTimeParser#parseAll(java.util.List,
+ * java.util.Date, java.util.concurrent.ExecutorService)}. Either holds the parsed value, or the exception that parsing
+ * the text failed with.
+ *
+ * @author <a href="mailto:lincolnbaxter@gmail.com>Lincoln Baxter, III</a>
+ */
+public final class ParseResult<T>
+{
+   private final String text;
+   private final T value;
+   private final RuntimeException error;
+
+   ParseResult(String text, T value, RuntimeException error)
+   {
+      this.text = text;
+      this.value = value;
+      this.error = error;
+   }
+
+   /**
+    * Get the text that was parsed.
+    */
+   public String getText()
+   {
+      return text;
+   }
+
+   /**
+    * Get the parsed value, or <code>null</code> if parsing failed.
+    */
+   public T getValue()
+   {
+      return value;
+   }
+
+   /**
+    * Get the exception that parsing failed with, or <code>null</code> if it succeeded.
+    */
+   public RuntimeException getError()
+   {
+      return error;
+   }
+
+   /**
+    * Return <code>true</code> if the text was parsed without an exception.
+    */
+   public boolean isSuccessful()
+   {
+      return error == null;
+   }
+
+   @Override
+   public String toString()
+   {
+      return "ParseResult [text=" + text + (error == null ? ", value=" + value : ", error=" + error) + "]";
+   }
+}
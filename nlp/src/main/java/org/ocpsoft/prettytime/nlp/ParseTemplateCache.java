@@ -0,0 +1,297 @@
+package org.ocpsoft.prettytime.nlp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded, approximately least recently used cache of parse results that can be replayed against other reference
+ * dates on the same day, used by {@link PrettyTimeParser#parse(String, Date)}.
+ * <p>
+ * Natty derives each parsed {@link Date} either from the reference (e.g. "in 2 hours", "next monday", "yesterday"),
+ * carrying over its time of day down to the millisecond, or from a time of day given in the text (e.g. "tomorrow at
+ * 5pm"), with the seconds and milliseconds zeroed. A cached template records which of the two applies to each parsed
+ * {@link Date}: the former are shifted by the distance between the references, the latter are replayed as they are.
+ * Templates are keyed by the exact text and the local date of the reference in the parser's {@link TimeZone}, since
+ * weekdays, months and years are only fixed within a day. A replay that would cross a change of the zone offset that
+ * the original parse did not is not trusted, and the text is parsed again.
+ * <p>
+ * Results whose reference has a millisecond of zero cannot be classified this way and are not cached.
+ * <p>
+ * Lookups never lock: a hit is a {@link ConcurrentHashMap} read plus an access stamp that is only written when it has
+ * gone stale, as in {@link org.ocpsoft.prettytime.cache.PrettyTimeCache}. A put that grows the cache beyond its
+ * maximum size evicts the templates with the oldest stamps, and an eighth of the maximum size more, so that the scan
+ * over all templates is only paid once every so many misses.
+ *
+ * @author <a href="mailto:lincolnbaxter@gmail.com>Lincoln Baxter, III</a>
+ */
+public class ParseTemplateCache
+{
+   private static final long MILLIS_PER_DAY = 24 * 60 * 60 * 1000L;
+
+   private final TimeZone timezone;
+   private final int maxSize;
+   private final ConcurrentHashMap<Key, Template> templates = new ConcurrentHashMap<Key, Template>();
+   private final AtomicLong clock = new AtomicLong();
+   private final AtomicBoolean evicting = new AtomicBoolean();
+
+   private final LongAdder hits = new LongAdder();
+   private final LongAdder misses = new LongAdder();
+   private final LongAdder evictions = new LongAdder();
+
+   ParseTemplateCache(TimeZone timezone, final int maxSize)
+   {
+      if (maxSize < 0)
+         throw new IllegalArgumentException("Maximum template cache size must not be negative: " + maxSize);
+      this.timezone = timezone;
+      this.maxSize = maxSize;
+   }
+
+   /**
+    * Replay the cached template of the given text for the given reference, or return <code>null</code> if there is
+    * none that applies.
+    */
+   List<Date> get(String language, Date reference)
+   {
+      if (maxSize == 0)
+         return null;
+
+      long ref = reference.getTime();
+      Template template = templates.get(new Key(language, getDay(ref)));
+      List<Date> result = null;
+      if (template != null) {
+         template.touch(clock.get());
+         result = template.replay(ref);
+      }
+
+      if (result == null)
+         misses.increment();
+      else
+         hits.increment();
+      return result;
+   }
+
+   /**
+    * Cache the given result of parsing the given text against the given reference, if it can be replayed.
+    */
+   void put(String language, Date reference, List<Date> result)
+   {
+      if (maxSize == 0)
+         return;
+
+      long ref = reference.getTime();
+      if (Math.floorMod(ref, 1000) == 0)
+         return;
+
+      long[] dates = new long[result.size()];
+      boolean[] shifted = new boolean[result.size()];
+      for (int i = 0; i < dates.length; i++) {
+         dates[i] = result.get(i).getTime();
+         long millis = Math.floorMod(dates[i], 1000);
+         if (millis == Math.floorMod(ref, 1000))
+            shifted[i] = true;
+         else if (millis != 0)
+            return;
+      }
+
+      templates.put(new Key(language, getDay(ref)), new Template(ref, dates, shifted, advance()));
+      if (templates.size() > maxSize)
+         evict();
+   }
+
+   /**
+    * Return a stamp for a new template and move the clock past it, so that later hits rank above it.
+    */
+   private long advance()
+   {
+      long stamp = clock.incrementAndGet();
+      clock.incrementAndGet();
+      return stamp;
+   }
+
+   /**
+    * Remove the templates with the oldest stamps until the cache fits, plus an eighth of the maximum size. Only one
+    * thread evicts at a time; puts racing with it may leave the cache above its maximum size until the next put.
+    */
+   private void evict()
+   {
+      if (!evicting.compareAndSet(false, true))
+         return;
+      try {
+         int count = templates.size() - maxSize;
+         if (count <= 0)
+            return;
+         count += maxSize / 8;
+
+         long[] stamps = new long[templates.size()];
+         int length = 0;
+         for (Iterator<Template> it = templates.values().iterator(); it.hasNext() && length < stamps.length;) {
+            stamps[length++] = it.next().stamp;
+         }
+         if (length == 0)
+            return;
+         Arrays.sort(stamps, 0, length);
+         long oldest = stamps[Math.min(count, length) - 1];
+
+         for (Iterator<Map.Entry<Key, Template>> it = templates.entrySet().iterator(); it.hasNext() && count > 0;) {
+            Map.Entry<Key, Template> e = it.next();
+            if (e.getValue().stamp <= oldest && templates.remove(e.getKey(), e.getValue())) {
+               evictions.increment();
+               count--;
+            }
+         }
+      }
+      finally {
+         evicting.set(false);
+      }
+   }
+
+   private long getDay(long millis)
+   {
+      return Math.floorDiv(millis + timezone.getOffset(millis), MILLIS_PER_DAY);
+   }
+
+   /**
+    * Return the number of cached templates.
+    */
+   public int size()
+   {
+      return templates.size();
+   }
+
+   /**
+    * Return the maximum number of cached templates. Zero disables the cache.
+    */
+   public int getMaxSize()
+   {
+      return maxSize;
+   }
+
+   /**
+    * Return the number of parses answered from a template.
+    */
+   public long getHits()
+   {
+      return hits.sum();
+   }
+
+   /**
+    * Return the number of parses that had no applicable template.
+    */
+   public long getMisses()
+   {
+      return misses.sum();
+   }
+
+   /**
+    * Return the number of templates evicted to stay within the maximum size.
+    */
+   public long getEvictions()
+   {
+      return evictions.sum();
+   }
+
+   /**
+    * Return the fraction of lookups answered from a template, or zero if there were none.
+    */
+   public double getHitRatio()
+   {
+      long answered = getHits();
+      long total = answered + getMisses();
+      return total == 0 ? 0 : (double) answered / total;
+   }
+
+   /**
+    * Remove all templates. Statistics are kept.
+    */
+   public void clear()
+   {
+      templates.clear();
+   }
+
+   @Override
+   public String toString()
+   {
+      return "ParseTemplateCache [size=" + size() + ", maxSize=" + maxSize + ", hits=" + getHits() + ", misses="
+               + getMisses() + ", evictions=" + getEvictions() + "]";
+   }
+
+   private final class Template
+   {
+      private final long reference;
+      private final long[] dates;
+      private final boolean[] shifted;
+      private volatile long stamp;
+
+      Template(long reference, long[] dates, boolean[] shifted, long stamp)
+      {
+         this.reference = reference;
+         this.dates = dates;
+         this.shifted = shifted;
+         this.stamp = stamp;
+      }
+
+      /**
+       * Only write the stamp when it is stale, so that repeated hits on a hot template stay read-only.
+       */
+      void touch(long now)
+      {
+         if (stamp < now)
+            stamp = now;
+      }
+
+      List<Date> replay(long ref)
+      {
+         long shift = ref - reference;
+         if (timezone.getOffset(ref) != timezone.getOffset(reference))
+            return null;
+
+         List<Date> result = new ArrayList<Date>(dates.length);
+         for (int i = 0; i < dates.length; i++) {
+            long date = dates[i];
+            if (shifted[i]) {
+               if (timezone.getOffset(date + shift) != timezone.getOffset(date))
+                  return null;
+               date += shift;
+            }
+            result.add(new Date(date));
+         }
+         return result;
+      }
+   }
+
+   private static final class Key
+   {
+      private final String language;
+      private final long day;
+
+      Key(String language, long day)
+      {
+         this.language = language;
+         this.day = day;
+      }
+
+      @Override
+      public int hashCode()
+      {
+         return language.hashCode() * 31 + (int) (day ^ (day >>> 32));
+      }
+
+      @Override
+      public boolean equals(Object obj)
+      {
+         if (!(obj instanceof Key))
+            return false;
+         Key other = (Key) obj;
+         return day == other.day && language.equals(other.language);
+      }
+   }
+}
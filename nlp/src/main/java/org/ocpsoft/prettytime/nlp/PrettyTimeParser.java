@@ -1,14 +1,24 @@
 package org.ocpsoft.prettytime.nlp;
 
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.Set;
+import java.util.Queue;
 import java.util.TimeZone;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 
 import org.ocpsoft.prettytime.nlp.parse.DateGroup;
 
@@ -26,79 +36,54 @@ import com.joestelmach.natty.Parser;
  * //result: Date - 2:00PM
  * <p>
  * </code>
+ * <p>
+ * Instances are thread-safe. Natty parsers are not shared between threads: each call borrows one from a bounded pool
+ * of idle parsers, or creates one if none is idle, and returns it afterwards. Nothing is bound to threads, so this also
+ * holds for virtual threads.
  * 
  * @author <a href="mailto:lincolnbaxter@gmail.com>Lincoln Baxter, III</a>
  */
 public class PrettyTimeParser
 {
 
-   private Parser parser = new Parser();
-   private Map<String, String> translations = new HashMap<String, String>();
-   private Set<String> periods = new HashSet<String>();
-
-   private final String[] tensNames = {
-            "",
-            " ten",
-            " twenty",
-            " thirty",
-            " forty",
-            " fifty",
-            " sixty",
-            " seventy",
-            " eighty",
-            " ninety"
-   };
-
-   private final String[] numNames = {
-            "",
-            " one",
-            " two",
-            " three",
-            " four",
-            " five",
-            " six",
-            " seven",
-            " eight",
-            " nine",
-            " ten",
-            " eleven",
-            " twelve",
-            " thirteen",
-            " fourteen",
-            " fifteen",
-            " sixteen",
-            " seventeen",
-            " eighteen",
-            " nineteen"
-   };
+   /**
+    * The default maximum number of cached parse templates, see {@link #getTemplateCache()}.
+    */
+   public static final int DEFAULT_TEMPLATE_CACHE_SIZE = 256;
+
+   /**
+    * Returned by {@link #parseMillis(String, long)} for text that contains no date.
+    */
+   public static final long NO_DATE = Long.MIN_VALUE;
+
+   private static final int PROCESSORS = Runtime.getRuntime().availableProcessors();
+   private static final int MAX_IDLE_PARSERS = PROCESSORS * 2;
+   private static final int BATCH_TASKS_PER_PROCESSOR = 4;
+
+   private final TimeZone timezone;
+   private final Queue<Parser> idle = new ConcurrentLinkedQueue<Parser>();
+   private final AtomicInteger idleCount = new AtomicInteger();
+   private final ParseTemplateCache templates;
+   private final RelativeDateParser relativeDates;
 
    /**
     * Create a new {@link PrettyTimeParser} with the given {@link TimeZone}.
     */
    public PrettyTimeParser(TimeZone timezone)
    {
-      parser = new Parser(timezone);
-
-      for (int hours = 0; hours < 24; hours++) {
-         for (int min = 0; min < 60; min++) {
-            translations.put(provideRepresentation(hours * 100 + min), "" + hours * 100 + min);
-         }
-      }
+      this(timezone, DEFAULT_TEMPLATE_CACHE_SIZE);
+   }
 
-      translations.put(provideRepresentation(60), "" + 60);
-      translations.put(provideRepresentation(70), "" + 70);
-      translations.put(provideRepresentation(80), "" + 80);
-      translations.put(provideRepresentation(90), "" + 90);
-      translations.put(provideRepresentation(100), "" + 100);
-
-      periods.add("morning");
-      periods.add("afternoon");
-      periods.add("evening");
-      periods.add("night");
-      periods.add("am");
-      periods.add("pm");
-      periods.add("ago");
-      periods.add("from now");
+   /**
+    * Create a new {@link PrettyTimeParser} with the given {@link TimeZone}, caching at most the given number of parse
+    * templates. Zero disables the cache.
+    */
+   public PrettyTimeParser(TimeZone timezone, int templateCacheSize)
+   {
+      this.timezone = (TimeZone) timezone.clone();
+      this.templates = new ParseTemplateCache(this.timezone, templateCacheSize);
+      this.relativeDates = new RelativeDateParser(this.timezone);
+      release(new Parser(this.timezone));
    }
 
    /**
@@ -113,32 +98,34 @@ public class PrettyTimeParser
     * Provides a string representation for the number passed. This method works for limited set of numbers as parsing
     * will only be done at maximum for 2400, which will be used in military time format.
     */
-   private String provideRepresentation(int number)
+   private static String provideRepresentation(int number)
    {
-      String key;
-
       if (number == 0)
-         key = "zero";
-      else if (number < 20)
-         key = numNames[number];
-      else if (number < 100) {
-         int unit = number % 10;
-         key = tensNames[number / 10] + numNames[unit];
-      }
-      else {
-         int unit = number % 10;
-         int ten = number % 100 - unit;
-         int hundred = (number - ten) / 100;
-         if (hundred < 20)
-            key = numNames[hundred] + " hundred";
-         else
-            key = tensNames[hundred / 10] + numNames[hundred % 10] + " hundred";
-         if (ten + unit < 20 && ten + unit > 10)
-            key += numNames[ten + unit];
-         else
-            key += tensNames[ten / 10] + numNames[unit];
+         return Vocabulary.ZERO;
+      if (number < 100)
+         return belowHundred(number);
+
+      return words(belowHundred(number / 100), Vocabulary.HUNDRED, belowHundred(number % 100));
+   }
+
+   private static String belowHundred(int number)
+   {
+      if (number < 20)
+         return Vocabulary.NUMBERS[number];
+      return words(Vocabulary.TENS[number / 10], Vocabulary.NUMBERS[number % 10]);
+   }
+
+   private static String words(String... words)
+   {
+      StringBuilder result = new StringBuilder();
+      for (String word : words) {
+         if (!word.isEmpty()) {
+            if (result.length() > 0)
+               result.append(' ');
+            result.append(word);
+         }
       }
-      return key.trim();
+      return result.toString();
    }
 
    /**
@@ -150,44 +137,362 @@ public class PrettyTimeParser
    }
 
    /**
-    * Parse the given language and return a {@link List} with all discovered {@link Date} instances.
+    * Parse the given language and return a {@link List} with all discovered {@link Date} instances. The most common
+    * relative expressions, such as "3 days ago", "in 2 hours", "5 minutes from now", "yesterday" and "tomorrow", are
+    * computed directly when they make up the whole text. Results of other text that was parsed before on the same day
+    * are replayed from the {@link #getTemplateCache()}.
     *
     * @param referenceDate date to use as a reference for the parsing.
     */
    public List<Date> parse(String language, Date referenceDate)
    {
-      language = words2numbers(language);
-
       List<Date> result = new ArrayList<>();
-      List<com.joestelmach.natty.DateGroup> groups = parser.parse(language, referenceDate);
+      if (!mayContainDate(language))
+         return result;
+
+      long relative = relativeDates.parse(language,
+               referenceDate != null ? referenceDate.getTime() : System.currentTimeMillis());
+      if (relative != RelativeDateParser.NO_MATCH) {
+         result.add(new Date(relative));
+         return result;
+      }
+
+      if (referenceDate != null) {
+         List<Date> cached = templates.get(language, referenceDate);
+         if (cached != null)
+            return cached;
+      }
+
+      List<com.joestelmach.natty.DateGroup> groups = parseGroups(words2numbers(language), referenceDate);
       for (com.joestelmach.natty.DateGroup group : groups) {
          result.addAll(group.getDates());
       }
+
+      if (referenceDate != null)
+         templates.put(language, referenceDate, result);
       return result;
    }
 
+   /**
+    * Parse the given language as {@link #parse(String, Date)} does and return the epoch milliseconds of the first
+    * discovered date, or {@link #NO_DATE} if there is none. The relative expressions that {@link #parse(String, Date)}
+    * computes directly are returned without creating a {@link Date} or a {@link List}; the result of any other text is
+    * taken from {@link #parse(String, Date)}.
+    *
+    * @param reference epoch milliseconds to use as a reference for the parsing.
+    */
+   public long parseMillis(String language, long reference)
+   {
+      if (!mayContainDate(language))
+         return NO_DATE;
+
+      long relative = relativeDates.parse(language, reference);
+      if (relative != RelativeDateParser.NO_MATCH)
+         return relative;
+
+      List<Date> dates = parse(language, new Date(reference));
+      return dates.isEmpty() ? NO_DATE : dates.get(0).getTime();
+   }
+
    /**
     * Parse the given language and return a {@link List} with all discovered {@link DateGroup} instances.
     */
    public List<DateGroup> parseSyntax(String language)
    {
-      language = words2numbers(language);
+      return parseSyntax(language, new Date());
+   }
 
+   /**
+    * Parse the given language and return a {@link List} with all discovered {@link DateGroup} instances.
+    *
+    * @param referenceDate date to use as a reference for the parsing.
+    */
+   public List<DateGroup> parseSyntax(String language, Date referenceDate)
+   {
       List<DateGroup> result = new ArrayList<DateGroup>();
-      List<com.joestelmach.natty.DateGroup> groups = parser.parse(language);
-      Date now = new Date();
+      if (!mayContainDate(language))
+         return result;
+
+      language = words2numbers(language);
+      Date now = referenceDate != null ? referenceDate : new Date();
+      List<com.joestelmach.natty.DateGroup> groups = parseGroups(language, now);
       for (com.joestelmach.natty.DateGroup group : groups) {
          result.add(new DateGroupImpl(now, group));
       }
       return result;
    }
 
+   /**
+    * Parse the given language as {@link #parseSyntax(String, Date)} does, within the limits of the given
+    * {@link ParseOptions}. Input that exceeds the maximum length or number of tokens is rejected before parsing. Input
+    * longer than the chunk size is parsed in chunks of at most that size, as by a {@link DateExtractor}. The timeout,
+    * deadline and cancellation are checked before each chunk and once more after the last, so a parse returns at most
+    * the time it takes to parse one chunk after them, and a parse that passed them while parsing its last chunk is not
+    * reported as completed. The {@link ParseOutcome} tells whether the whole input was parsed in time, and holds the
+    * {@link DateGroup} instances found until the parse ended.
+    *
+    * @param referenceDate date to use as a reference for the parsing, or <code>null</code> for the current time.
+    */
+   public ParseOutcome parseBounded(String language, Date referenceDate, ParseOptions options)
+   {
+      final List<DateGroup> groups = new ArrayList<DateGroup>();
+      if (language.length() > options.getMaxLength())
+         return new ParseOutcome(ParseOutcome.Status.TOO_LONG, groups);
+      if (hasMoreTokens(language, options.getMaxTokens()))
+         return new ParseOutcome(ParseOutcome.Status.TOO_MANY_TOKENS, groups);
+
+      Budget budget = new Budget(options);
+      if (language.length() <= options.getChunkSize()) {
+         if (!budget.getAsBoolean())
+            groups.addAll(parseSyntax(language, referenceDate));
+      }
+      else {
+         DateExtractor extractor = new DateExtractor(this, referenceDate, options.getChunkSize());
+         try {
+            extractor.extract(new StringReader(language), new Consumer<DateGroup>() {
+               @Override
+               public void accept(DateGroup group)
+               {
+                  groups.add(group);
+               }
+            }, budget);
+         }
+         catch (IOException e) {
+            throw new UncheckedIOException(e);
+         }
+      }
+      budget.getAsBoolean();
+      return new ParseOutcome(budget.status, groups);
+   }
+
+   private static boolean hasMoreTokens(String language, int maxTokens)
+   {
+      int tokens = 0;
+      boolean token = false;
+      for (int i = 0; i < language.length(); i++) {
+         boolean whitespace = Character.isWhitespace(language.charAt(i));
+         if (!whitespace && !token && ++tokens > maxTokens)
+            return true;
+         token = !whitespace;
+      }
+      return false;
+   }
+
+   /**
+    * Decides whether a bounded parse stops before its next chunk, and records why. Once stopped, the reason is kept.
+    */
+   private static final class Budget implements BooleanSupplier
+   {
+      private final long start = System.nanoTime();
+      private final long remainingNanos;
+      private final BooleanSupplier cancellation;
+      private ParseOutcome.Status status = ParseOutcome.Status.COMPLETED;
+
+      Budget(ParseOptions options)
+      {
+         this.remainingNanos = options.remainingNanos();
+         this.cancellation = options.getCancellation();
+      }
+
+      @Override
+      public boolean getAsBoolean()
+      {
+         if (status != ParseOutcome.Status.COMPLETED)
+            return true;
+         if (Thread.currentThread().isInterrupted() || (cancellation != null && cancellation.getAsBoolean()))
+            status = ParseOutcome.Status.CANCELLED;
+         else if (System.nanoTime() - start >= remainingNanos)
+            status = ParseOutcome.Status.TIMED_OUT;
+         return status != ParseOutcome.Status.COMPLETED;
+      }
+   }
+
+   /**
+    * Return <code>false</code> if the given text cannot contain a date or time expression, because it has neither a
+    * digit nor a word starting with a month or day name, a relative day ("today"), a time of day, a period ("week"), a
+    * season, a holiday or a spelled out number. This is much cheaper than parsing, which is skipped for such text. A
+    * result of <code>true</code> does not mean that the text contains a date.
+    */
+   public boolean mayContainDate(CharSequence text)
+   {
+      return DateKeywordFilter.mayContainDate(text);
+   }
+
+   /**
+    * Parse each of the given texts as {@link #parse(String, Date)} does, in parallel on the given
+    * {@link ExecutorService}, and return their results in the order of the texts. A text that fails to parse does not
+    * affect the others: its {@link ParseResult} holds the exception instead. If the reference date is
+    * <code>null</code>, the current time is used for the whole batch. If the {@link ExecutorService} is
+    * <code>null</code>, the texts are parsed on the calling thread.
+    * <p>
+    * The texts are split into a few contiguous ranges per processor, each parsed by a single task, so that a large
+    * batch does not flood the {@link ExecutorService} with tasks.
+    *
+    * @throws InterruptedException if the calling thread is interrupted while waiting; unfinished tasks are cancelled
+    */
+   public List<ParseResult<List<Date>>> parseAll(List<String> languages, Date referenceDate, ExecutorService executor)
+            throws InterruptedException
+   {
+      final Date reference = referenceDate != null ? referenceDate : new Date();
+      return parseAll(languages, executor, new BatchParse<List<Date>>() {
+         @Override
+         public List<Date> parse(String language)
+         {
+            return PrettyTimeParser.this.parse(language, reference);
+         }
+      });
+   }
+
+   /**
+    * Parse each of the given texts as {@link #parseSyntax(String, Date)} does, in parallel on the given
+    * {@link ExecutorService}, and return their results in the order of the texts. See
+    * {@link #parseAll(List, Date, ExecutorService)}.
+    *
+    * @throws InterruptedException if the calling thread is interrupted while waiting; unfinished tasks are cancelled
+    */
+   public List<ParseResult<List<DateGroup>>> parseSyntaxAll(List<String> languages, Date referenceDate,
+            ExecutorService executor) throws InterruptedException
+   {
+      final Date reference = referenceDate != null ? referenceDate : new Date();
+      return parseAll(languages, executor, new BatchParse<List<DateGroup>>() {
+         @Override
+         public List<DateGroup> parse(String language)
+         {
+            return parseSyntax(language, reference);
+         }
+      });
+   }
+
+   private <T> List<ParseResult<T>> parseAll(final List<String> languages, ExecutorService executor,
+            final BatchParse<T> parse) throws InterruptedException
+   {
+      final String[] texts = languages.toArray(new String[languages.size()]);
+      @SuppressWarnings("unchecked")
+      final ParseResult<T>[] results = new ParseResult[texts.length];
+
+      int tasks = executor == null ? 1 : Math.min(texts.length, BATCH_TASKS_PER_PROCESSOR * PROCESSORS);
+      List<Future<?>> futures = new ArrayList<Future<?>>(tasks);
+      try {
+         for (int task = 0; task < tasks; task++) {
+            final int from = (int) ((long) texts.length * task / tasks);
+            final int to = (int) ((long) texts.length * (task + 1) / tasks);
+            Runnable range = new Runnable() {
+               @Override
+               public void run()
+               {
+                  for (int i = from; i < to; i++) {
+                     try {
+                        results[i] = new ParseResult<T>(texts[i], parse.parse(texts[i]), null);
+                     }
+                     catch (RuntimeException e) {
+                        results[i] = new ParseResult<T>(texts[i], null, e);
+                     }
+                  }
+               }
+            };
+            if (executor == null)
+               range.run();
+            else
+               futures.add(executor.submit(range));
+         }
+
+         for (Future<?> future : futures) {
+            try {
+               future.get();
+            }
+            catch (ExecutionException e) {
+               Throwable cause = e.getCause();
+               if (cause instanceof Error)
+                  throw (Error) cause;
+               throw new IllegalStateException("Batch parse failed.", cause);
+            }
+         }
+      }
+      finally {
+         for (Future<?> future : futures) {
+            future.cancel(true);
+         }
+      }
+      return Arrays.asList(results);
+   }
+
+   private interface BatchParse<T>
+   {
+      T parse(String language);
+   }
+
+   /**
+    * Return the cache of reference independent parse templates used by {@link #parse(String, Date)}, e.g. to monitor
+    * its hit ratio.
+    */
+   public ParseTemplateCache getTemplateCache()
+   {
+      return templates;
+   }
+
+   private List<com.joestelmach.natty.DateGroup> parseGroups(String language, Date referenceDate)
+   {
+      Parser parser = borrow();
+      try {
+         return parser.parse(language, referenceDate);
+      }
+      finally {
+         release(parser);
+      }
+   }
+
+   private Parser borrow()
+   {
+      Parser parser = idle.poll();
+      if (parser == null)
+         return new Parser(timezone);
+      idleCount.decrementAndGet();
+      return parser;
+   }
+
+   private void release(Parser parser)
+   {
+      if (idleCount.incrementAndGet() <= MAX_IDLE_PARSERS)
+         idle.offer(parser);
+      else
+         idleCount.decrementAndGet();
+   }
+
    private String words2numbers(String language)
    {
-      for (Entry<String, String> entry : translations.entrySet()) {
-         language = language.replaceAll("\\b" + entry.getKey() + "\\b", entry.getValue());
+      return NumberWords.TRANSLATOR.translate(language);
+   }
+
+   /**
+    * The number words of all hours and minutes, up to 2359 as used in military time. They are built once, on first
+    * use, and shared by all {@link PrettyTimeParser} instances.
+    */
+   static Map<String, String> getTranslations()
+   {
+      return NumberWords.TRANSLATIONS;
+   }
+
+   private static final class NumberWords
+   {
+      private static final Map<String, String> TRANSLATIONS = Collections.unmodifiableMap(translations());
+      private static final NumberWordTranslator TRANSLATOR = new NumberWordTranslator(TRANSLATIONS);
+
+      private static Map<String, String> translations()
+      {
+         Map<String, String> result = new HashMap<String, String>();
+         for (int hours = 0; hours < 24; hours++) {
+            for (int min = 0; min < 60; min++) {
+               result.put(provideRepresentation(hours * 100 + min), "" + hours * 100 + min);
+            }
+         }
+
+         result.put(provideRepresentation(60), "" + 60);
+         result.put(provideRepresentation(70), "" + 70);
+         result.put(provideRepresentation(80), "" + 80);
+         result.put(provideRepresentation(90), "" + 90);
+         result.put(provideRepresentation(100), "" + 100);
+         return result;
       }
-      return language;
    }
 
    private class DateGroupImpl implements DateGroup
@@ -0,0 +1,213 @@
+package org.ocpsoft.prettytime.nlp;
+
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+
+import org.ocpsoft.prettytime.TimeUnit;
+import org.ocpsoft.prettytime.units.Day;
+import org.ocpsoft.prettytime.units.Hour;
+import org.ocpsoft.prettytime.units.Minute;
+import org.ocpsoft.prettytime.units.Month;
+import org.ocpsoft.prettytime.units.Second;
+import org.ocpsoft.prettytime.units.Week;
+import org.ocpsoft.prettytime.units.Year;
+
+/**
+ * Parses the most common relative expressions without natty: "yesterday", "tomorrow", "3 days ago", "in 2 hours" and
+ * "5 minutes from now", where the unit is one of seconds, minutes, hours, days, weeks, months or years. Only text that
+ * consists of exactly one such expression, ignoring case and surrounding spaces, is recognized.
+ * <p>
+ * Results are identical to natty's, which moves a {@link GregorianCalendar} in the parser's {@link TimeZone} by the
+ * given amount of the unit. Seconds, minutes and hours are a fixed number of milliseconds. Days and weeks are too,
+ * unless the zone offset changes around the result, in which case the wall clock time is kept by a calendar, as for
+ * months and years.
+ *
+ * @author <a href="mailto:lincolnbaxter@gmail.com>Lincoln Baxter, III</a>
+ */
+final class RelativeDateParser
+{
+   /**
+    * Returned by {@link #parse(CharSequence, long)} for text that is not a recognized relative expression.
+    */
+   static final long NO_MATCH = Long.MIN_VALUE;
+
+   /**
+    * Amounts with more digits are left to natty, which reads some of them as years or times of day, as it does zero.
+    */
+   private static final int MAX_DIGITS = 3;
+
+   private static final Unit[] UNITS = {
+            new Unit(new Second(), Calendar.SECOND, "second", "seconds", "sec", "secs"),
+            new Unit(new Minute(), Calendar.MINUTE, "minute", "minutes", "min", "mins"),
+            new Unit(new Hour(), Calendar.HOUR, "hour", "hours", "hr", "hrs"),
+            new Unit(new Day(), Calendar.DAY_OF_YEAR, "day", "days"),
+            new Unit(new Week(), Calendar.WEEK_OF_YEAR, "week", "weeks", "wks"),
+            new Unit(new Month(), Calendar.MONTH, "month", "months"),
+            new Unit(new Year(), Calendar.YEAR, "year", "years", "yrs")
+   };
+
+   private static final Unit DAY = UNITS[3];
+
+   private final TimeZone timezone;
+
+   RelativeDateParser(TimeZone timezone)
+   {
+      this.timezone = timezone;
+   }
+
+   /**
+    * Return the epoch milliseconds the given text refers to relative to the given reference, or {@link #NO_MATCH}.
+    */
+   long parse(CharSequence text, long reference)
+   {
+      Scanner scanner = new Scanner(text);
+      scanner.skipSpaces();
+      if (scanner.word("yesterday") && scanner.atEnd())
+         return add(reference, DAY, -1);
+      scanner.reset();
+      if (scanner.word("tomorrow") && scanner.atEnd())
+         return add(reference, DAY, 1);
+      scanner.reset();
+
+      boolean future = scanner.word("in") && scanner.skipSpaces();
+      if (!future)
+         scanner.reset();
+
+      int amount = scanner.number();
+      if (amount <= 0 || !scanner.skipSpaces())
+         return NO_MATCH;
+      Unit unit = scanner.unit();
+      if (unit == null)
+         return NO_MATCH;
+
+      if (future) {
+         if (!scanner.atEnd())
+            return NO_MATCH;
+      }
+      else {
+         int mark = scanner.position;
+         if (!(scanner.skipSpaces() && scanner.word("ago") && scanner.atEnd())) {
+            scanner.position = mark;
+            if (!(scanner.skipSpaces() && scanner.word("from") && scanner.skipSpaces() && scanner.word("now")
+                     && scanner.atEnd()))
+               return NO_MATCH;
+            future = true;
+         }
+      }
+      return add(reference, unit, future ? amount : -amount);
+   }
+
+   private long add(long reference, Unit unit, int amount)
+   {
+      if (unit.millis > 0 && unit.field != Calendar.MONTH && unit.field != Calendar.YEAR) {
+         long result = reference + amount * unit.millis;
+         if (unit.field != Calendar.DAY_OF_YEAR && unit.field != Calendar.WEEK_OF_YEAR)
+            return result;
+
+         // Without an offset change near the result, keeping the wall clock time is a fixed shift.
+         long day = DAY.millis;
+         int offset = timezone.getOffset(reference);
+         if (timezone.getOffset(result) == offset && timezone.getOffset(result - day) == offset
+                  && timezone.getOffset(result + day) == offset)
+            return result;
+      }
+
+      Calendar calendar = new GregorianCalendar(timezone);
+      calendar.setTimeInMillis(reference);
+      calendar.add(unit.field, amount);
+      return calendar.getTimeInMillis();
+   }
+
+   private static final class Unit
+   {
+      private final long millis;
+      private final int field;
+      private final String[] names;
+
+      Unit(TimeUnit unit, int field, String... names)
+      {
+         this.millis = unit.getMillisPerUnit();
+         this.field = field;
+         this.names = names;
+      }
+   }
+
+   private static final class Scanner
+   {
+      private final CharSequence text;
+      private int position;
+
+      Scanner(CharSequence text)
+      {
+         this.text = text;
+      }
+
+      void reset()
+      {
+         position = 0;
+         skipSpaces();
+      }
+
+      /**
+       * Skip spaces and return whether there were any.
+       */
+      boolean skipSpaces()
+      {
+         int start = position;
+         while (position < text.length() && text.charAt(position) == ' ') {
+            position++;
+         }
+         return position > start;
+      }
+
+      boolean atEnd()
+      {
+         skipSpaces();
+         return position == text.length();
+      }
+
+      /**
+       * Consume the given lower case word, ignoring case, if it is followed by a space or the end of the text.
+       */
+      boolean word(String word)
+      {
+         int end = position + word.length();
+         if (end > text.length() || (end < text.length() && text.charAt(end) != ' '))
+            return false;
+         for (int i = 0; i < word.length(); i++) {
+            if (Character.toLowerCase(text.charAt(position + i)) != word.charAt(i))
+               return false;
+         }
+         position = end;
+         return true;
+      }
+
+      /**
+       * Consume a number of at most {@link RelativeDateParser#MAX_DIGITS} digits and return it, or -1 if there is
+       * none.
+       */
+      int number()
+      {
+         int result = 0;
+         int start = position;
+         while (position < text.length() && text.charAt(position) >= '0' && text.charAt(position) <= '9') {
+            if (position - start == MAX_DIGITS)
+               return -1;
+            result = result * 10 + text.charAt(position++) - '0';
+         }
+         return position > start ? result : -1;
+      }
+
+      Unit unit()
+      {
+         for (Unit unit : UNITS) {
+            for (String name : unit.names) {
+               if (word(name))
+                  return unit;
+            }
+         }
+         return null;
+      }
+   }
+}
@@ -0,0 +1,54 @@
+package org.ocpsoft.prettytime.nlp;
+
+/**
+ * The words of date and time expressions that {@link PrettyTimeParser} knows about. The spelled out numbers are
+ * translated to digits before parsing, and {@link DateKeywordFilter} builds its keywords from all groups.
+ * <p>
+ * Apart from the numbers, words are listed by the shortest stem that identifies them, so that the stem also covers
+ * their plurals, abbreviations and common misspellings ("tom" for "tomorrow" and "tommorow", "mid" for "midnight" and
+ * "mid-night").
+ *
+ * @author <a href="mailto:lincolnbaxter@gmail.com>Lincoln Baxter, III</a>
+ */
+final class Vocabulary
+{
+   static final String[] MONTHS = { "jan", "feb", "mar", "apr", "may", "jun", "jul", "aug", "sep", "oct", "nov",
+            "dec" };
+
+   static final String[] DAYS = { "mon", "tue", "wed", "thu", "fri", "sat", "sun" };
+
+   static final String[] RELATIVE_DAYS = { "today", "tom", "tmr", "yesterday", "tonight", "now" };
+
+   static final String[] TIMES_OF_DAY = { "noon", "mid", "morning", "afternoon", "after-noon", "eve", "night" };
+
+   static final String[] PERIODS = { "sec", "min", "hour", "hr", "day", "week", "wk", "month", "year", "yr" };
+
+   static final String[] SEASONS = { "spring", "summer", "fall", "autumn", "winter" };
+
+   static final String[] HOLIDAYS = { "christmas", "xmas", "x-mas", "easter", "halloween", "haloween", "thanksgiving",
+            "kwanza", "valentine", "mlk", "independ", "inaug" };
+
+   /**
+    * The numbers below twenty, indexed by their value; zero is never spelled out as part of a larger number.
+    */
+   static final String[] NUMBERS = { "", "one", "two", "three", "four", "five", "six", "seven", "eight", "nine",
+            "ten", "eleven", "twelve", "thirteen", "fourteen", "fifteen", "sixteen", "seventeen", "eighteen",
+            "nineteen" };
+
+   /**
+    * The multiples of ten below one hundred, indexed by their value divided by ten.
+    */
+   static final String[] TENS = { "", "ten", "twenty", "thirty", "forty", "fifty", "sixty", "seventy", "eighty",
+            "ninety" };
+
+   static final String ZERO = "zero";
+
+   static final String HUNDRED = "hundred";
+
+   static final String[] ORDINALS = { "first", "second", "third", "fourth", "fifth", "sixth", "seventh", "eighth",
+            "ninth", "tenth", "eleventh", "twelfth", "thirteenth", "fourteenth", "fifteenth", "sixteenth",
+            "seventeenth", "eighteenth", "nineteenth", "twentieth", "thirtieth" };
+
+   private Vocabulary()
+   {}
+}
@@ -0,0 +1,113 @@
+package org.ocpsoft.prettytime.nlp;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TimeZone;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.ocpsoft.prettytime.nlp.DateExtractor.ExtractedDateGroup;
+import org.ocpsoft.prettytime.nlp.parse.DateGroup;
+
+public class DateExtractorTest
+{
+   private static final Date REFERENCE = new Date(1657830053123L);
+
+   private final PrettyTimeParser parser = new PrettyTimeParser(TimeZone.getTimeZone("UTC"));
+
+   @Test
+   public void testMatchesParsingTheWholeText() throws Exception
+   {
+      StringBuilder text = new StringBuilder();
+      String[] lines = { "hello", "I did it yesterday", "", "see you tomorrow at 5pm", "nothing to see here",
+               "Meet at 5pm. Then next monday too." };
+      for (int i = 0; i < 40; i++) {
+         text.append(lines[i % lines.length]).append(i % 2 == 0 ? "\n" : "\r\n");
+      }
+
+      List<DateGroup> expected = parser.parseSyntax(text.toString().replace("\r\n", "\n"), REFERENCE);
+      final List<ExtractedDateGroup> actual = new ArrayList<ExtractedDateGroup>();
+      new DateExtractor(parser, REFERENCE, 64).extract(new StringReader(text.toString()), actual::add);
+
+      Assert.assertEquals(expected.size(), actual.size());
+      for (int i = 0; i < expected.size(); i++) {
+         Assert.assertEquals(expected.get(i).getLine(), actual.get(i).getLine());
+         Assert.assertEquals(expected.get(i).getPosition(), actual.get(i).getPosition());
+         Assert.assertEquals(expected.get(i).getText(), actual.get(i).getText());
+         Assert.assertEquals(expected.get(i).getDates(), actual.get(i).getDates());
+         assertLocated(text.toString(), actual.get(i));
+      }
+   }
+
+   @Test
+   public void testSplitsLongLinesAtSentences()
+   {
+      StringBuilder text = new StringBuilder("first line\r\n");
+      for (int i = 0; i < 50; i++) {
+         text.append(i % 2 == 0 ? "We met yesterday. " : "Lunch is tomorrow at noon! ");
+      }
+      text.append("Bye");
+
+      Iterator<ExtractedDateGroup> groups = new DateExtractor(parser, REFERENCE, 100)
+               .iterator(new StringReader(text.toString()));
+      int count = 0;
+      while (groups.hasNext()) {
+         ExtractedDateGroup group = groups.next();
+         Assert.assertEquals(2, group.getLine());
+         Assert.assertEquals(12, group.getLineOffset());
+         assertLocated(text.toString(), group);
+         count++;
+      }
+      Assert.assertEquals(50, count);
+   }
+
+   @Test
+   public void testKeepsChunksWithinChunkSize() throws Exception
+   {
+      final List<String> chunks = new ArrayList<String>();
+      PrettyTimeParser recording = new PrettyTimeParser(TimeZone.getTimeZone("UTC")) {
+         @Override
+         public List<DateGroup> parseSyntax(String language, Date referenceDate)
+         {
+            chunks.add(language);
+            return super.parseSyntax(language, referenceDate);
+         }
+      };
+      StringBuilder text = new StringBuilder();
+      for (int i = 0; i < 60; i++) {
+         for (int j = 0; j < i % 7 * 4; j++) {
+            text.append(j % 5 == 4 ? ' ' : 'x');
+         }
+         text.append(i % 3 == 0 ? "\r\n" : "\n");
+         if (i % 4 == 0)
+            text.append("yesterday\n");
+      }
+
+      final List<ExtractedDateGroup> groups = new ArrayList<ExtractedDateGroup>();
+      new DateExtractor(recording, REFERENCE, 20).extract(new StringReader(text.toString()), groups::add);
+      Assert.assertEquals(15, groups.size());
+      int characters = 0;
+      for (String chunk : chunks) {
+         Assert.assertTrue(chunk, chunk.length() <= 20);
+         characters += chunk.replace("\n", "").length();
+      }
+      Assert.assertEquals(text.toString().replace("\r", "").replace("\n", "").length(), characters);
+   }
+
+   @Test
+   public void testStreamsLazily()
+   {
+      String text = "left yesterday\nback tomorrow\nmeet next monday\n";
+      Assert.assertEquals(3, new DateExtractor(parser, REFERENCE, 16).stream(new StringReader(text)).count());
+      Assert.assertEquals(1, new DateExtractor(parser, REFERENCE, 16).stream(new StringReader(text)).limit(1).count());
+   }
+
+   private static void assertLocated(String text, ExtractedDateGroup group)
+   {
+      int start = (int) group.getLineOffset() + group.getPosition() - 1;
+      Assert.assertEquals(group.toString(), group.getText(), text.substring(start, start + group.getText().length()));
+   }
+}
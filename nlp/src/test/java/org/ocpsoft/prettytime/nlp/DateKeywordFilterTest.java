@@ -0,0 +1,82 @@
+package org.ocpsoft.prettytime.nlp;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.TimeZone;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.joestelmach.natty.DateGroup;
+import com.joestelmach.natty.Parser;
+
+public class DateKeywordFilterTest
+{
+   private static final Date REFERENCE = new Date(1657830053123L);
+
+   private final PrettyTimeParser parser = new PrettyTimeParser(TimeZone.getTimeZone("UTC"), 0);
+
+   @Test
+   public void testAcceptsDateExpressions()
+   {
+      for (String language : new String[] { "I'll be there at two", "did it 3 days ago", "yesterday", "TONIGHT",
+               "next Tuesday", "on Christmas", "the first of January", "Let's meet in a couple of weeks",
+               "it's x-mas!", "at mid-night", "Fridays", "since 2012", "tmr morning" }) {
+         Assert.assertTrue(language, parser.mayContainDate(language));
+         Assert.assertTrue(language, DateKeywordFilter.mayContainDate(new StringBuilder(language)));
+      }
+   }
+
+   @Test
+   public void testRejectsTextWithoutDates()
+   {
+      for (String language : new String[] { "", "Let's get lunch", "the quick brown fox jumps over the lazy dog",
+               "xtuesday", "please review the attached report" }) {
+         Assert.assertFalse(language, parser.mayContainDate(language));
+         Assert.assertTrue(language, parser.parse(language, REFERENCE).isEmpty());
+         Assert.assertTrue(language, parser.parseSyntax(language, REFERENCE).isEmpty());
+      }
+   }
+
+   @Test
+   public void testNeverRejectsTextNattyFindsDatesIn()
+   {
+      String[] words = ("after afternoon ago am an and april at august autumn before beginning black christmas "
+               + "coming current day days december earth easter eight eighteenth election eleven end evening every "
+               + "fall father fifteen fifth final first five flag fool for four fourth friday fris from good ground "
+               + "halloween hog hour hrs in independence january jr july june king kwanza labor last luther march "
+               + "martin may memorial mid-night midnight mins minute mlk mons month morning mother new next night "
+               + "nine ninth noon november now october of on one or p.m paddy palm past patrick pm president saint "
+               + "sats saturday sec second september seven sixteen spring st start summer sunday suns tax ten th "
+               + "thanksgiving that the third thirty this three through thursday tmr to today tommorow tomorrow "
+               + "tonight tues twelfth twenty two until upcoming utc valentine veteran weds week weekend winter wks "
+               + "x-mas xmas year yesterday yrs hello lunch report we get let's cat x t h s ly teen ty ! . , '")
+               .split(" ");
+      String[] separators = { " ", " ", "", "-", "'" };
+
+      Parser natty = new Parser(TimeZone.getTimeZone("UTC"));
+      NumberWordTranslator translator = new NumberWordTranslator(PrettyTimeParser.getTranslations());
+      Random random = new Random(42);
+      int rejected = 0;
+      for (int i = 0; i < 20000; i++) {
+         StringBuilder language = new StringBuilder(words[random.nextInt(words.length)]);
+         for (int j = random.nextInt(4); j > 0; j--) {
+            language.append(separators[random.nextInt(separators.length)]).append(words[random.nextInt(words.length)]);
+         }
+         if (parser.mayContainDate(language))
+            continue;
+
+         rejected++;
+         List<DateGroup> groups;
+         try {
+            groups = natty.parse(translator.translate(language.toString()), REFERENCE);
+         }
+         catch (RuntimeException e) {
+            continue;
+         }
+         Assert.assertTrue(language.toString(), groups.isEmpty());
+      }
+      Assert.assertTrue(rejected > 1000);
+   }
+}
@@ -0,0 +1,80 @@
+package org.ocpsoft.prettytime.nlp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class NumberWordTranslatorTest
+{
+   private final NumberWordTranslator translator = new NumberWordTranslator(translations());
+
+   @Test
+   public void testReplacesWholeWordsOnly()
+   {
+      Assert.assertEquals("lunch at 02 pm", translator.translate("lunch at two pm"));
+      Assert.assertEquals("someone and noone", translator.translate("someone and noone"));
+      Assert.assertEquals("01-time, 02.", translator.translate("one-time, two."));
+      Assert.assertEquals("Two two_", translator.translate("Two two_"));
+   }
+
+   @Test
+   public void testPrefersLongestPhrase()
+   {
+      Assert.assertEquals("021 days ago", translator.translate("twenty one days ago"));
+      Assert.assertEquals("020 days ago", translator.translate("twenty days ago"));
+      Assert.assertEquals("020 onerous", translator.translate("twenty onerous"));
+      Assert.assertEquals("020  01", translator.translate("twenty  one"));
+   }
+
+   @Test
+   public void testReturnsInputWithoutNumbers()
+   {
+      String language = "let's get lunch tomorrow";
+      Assert.assertSame(language, translator.translate(language));
+      Assert.assertEquals("", translator.translate(""));
+   }
+
+   @Test
+   public void testMatchesLongestFirstRegexReplacement()
+   {
+      Map<String, String> translations = PrettyTimeParser.getTranslations();
+      Assert.assertSame(translations, PrettyTimeParser.getTranslations());
+      Assert.assertEquals(24 * 60 + 4, translations.size());
+
+      List<String> keys = new ArrayList<String>(translations.keySet());
+      Collections.sort(keys, new Comparator<String>() {
+         @Override
+         public int compare(String left, String right)
+         {
+            return right.length() - left.length();
+         }
+      });
+
+      NumberWordTranslator shared = new NumberWordTranslator(translations);
+      for (String language : new String[] { "let's get lunch at two pm", "I did it three days ago",
+               "meet me at twenty three hundred fifty nine", "at nineteen hundred or at seven fifteen",
+               "ninety days, one hundred days or sixty, zero one" }) {
+         String expected = language;
+         for (String key : keys) {
+            expected = expected.replaceAll("\\b" + key + "\\b", translations.get(key));
+         }
+         Assert.assertEquals(expected, shared.translate(language));
+      }
+   }
+
+   private static Map<String, String> translations()
+   {
+      Map<String, String> result = new HashMap<String, String>();
+      result.put("one", "01");
+      result.put("two", "02");
+      result.put("twenty", "020");
+      result.put("twenty one", "021");
+      return result;
+   }
+}
@@ -0,0 +1,181 @@
+package org.ocpsoft.prettytime.nlp;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.ocpsoft.prettytime.nlp.parse.DateGroup;
+
+public class ParseOptionsTest
+{
+   private static final Date REFERENCE = new Date(1657830053123L);
+   private static final String LINES = "left yesterday\nback tomorrow\nmeet next monday\n";
+
+   private final PrettyTimeParser parser = new PrettyTimeParser(TimeZone.getTimeZone("UTC"));
+
+   @Test
+   public void testDefaultsParseLikeParseSyntax()
+   {
+      String language = "Let's get lunch at two pm on friday";
+      ParseOutcome outcome = parser.parseBounded(language, REFERENCE, ParseOptions.DEFAULT);
+      Assert.assertEquals(ParseOutcome.Status.COMPLETED, outcome.getStatus());
+      Assert.assertTrue(outcome.isCompleted());
+      Assert.assertEquals(dates(parser.parseSyntax(language, REFERENCE)), outcome.getDates());
+   }
+
+   @Test
+   public void testChunksLongInput()
+   {
+      ParseOutcome outcome = parser.parseBounded(LINES, REFERENCE, ParseOptions.DEFAULT.withChunkSize(16));
+      Assert.assertTrue(outcome.isCompleted());
+      Assert.assertEquals(3, outcome.getDateGroups().size());
+      Assert.assertEquals(3, outcome.getDateGroups().get(2).getLine());
+   }
+
+   @Test
+   public void testRejectsOversizedInput()
+   {
+      ParseOutcome outcome = parser.parseBounded("3 days ago", REFERENCE, ParseOptions.DEFAULT.withMaxLength(9));
+      Assert.assertEquals(ParseOutcome.Status.TOO_LONG, outcome.getStatus());
+      Assert.assertTrue(outcome.getDateGroups().isEmpty());
+
+      outcome = parser.parseBounded(" 3  days\tago ", REFERENCE, ParseOptions.DEFAULT.withMaxTokens(2));
+      Assert.assertEquals(ParseOutcome.Status.TOO_MANY_TOKENS, outcome.getStatus());
+      Assert.assertTrue(outcome.getDateGroups().isEmpty());
+
+      outcome = parser.parseBounded(" 3  days\tago ", REFERENCE,
+               ParseOptions.DEFAULT.withMaxLength(13).withMaxTokens(3));
+      Assert.assertTrue(outcome.isCompleted());
+      Assert.assertEquals(1, outcome.getDates().size());
+   }
+
+   @Test
+   public void testTimesOut()
+   {
+      ParseOutcome outcome = parser.parseBounded(LINES, REFERENCE,
+               ParseOptions.DEFAULT.withTimeout(0, TimeUnit.SECONDS));
+      Assert.assertEquals(ParseOutcome.Status.TIMED_OUT, outcome.getStatus());
+      Assert.assertTrue(outcome.getDateGroups().isEmpty());
+
+      outcome = parser.parseBounded(LINES, REFERENCE,
+               ParseOptions.DEFAULT.withDeadline(new Date(System.currentTimeMillis() - 1)));
+      Assert.assertEquals(ParseOutcome.Status.TIMED_OUT, outcome.getStatus());
+
+      outcome = parser.parseBounded(LINES, REFERENCE, ParseOptions.DEFAULT.withTimeout(1, TimeUnit.MINUTES)
+               .withDeadline(new Date(System.currentTimeMillis() + 60000)));
+      Assert.assertTrue(outcome.isCompleted());
+   }
+
+   @Test
+   public void testCancelsBetweenChunks()
+   {
+      final AtomicInteger checks = new AtomicInteger();
+      BooleanSupplier cancellation = new BooleanSupplier() {
+         @Override
+         public boolean getAsBoolean()
+         {
+            return checks.incrementAndGet() > 1;
+         }
+      };
+      ParseOutcome outcome = parser.parseBounded(LINES, REFERENCE,
+               ParseOptions.DEFAULT.withChunkSize(16).withCancellation(cancellation));
+      Assert.assertEquals(ParseOutcome.Status.CANCELLED, outcome.getStatus());
+      // the first chunk holds the first line, since the second does not fit into it
+      Assert.assertFalse(outcome.getDateGroups().isEmpty());
+      for (DateGroup group : outcome.getDateGroups()) {
+         Assert.assertTrue(group.getLine() < 3);
+      }
+   }
+
+   @Test
+   public void testDoesNotCompleteWhenStoppedDuringLastChunk()
+   {
+      final AtomicInteger checks = new AtomicInteger();
+      BooleanSupplier cancellation = new BooleanSupplier() {
+         @Override
+         public boolean getAsBoolean()
+         {
+            return checks.incrementAndGet() > 1;
+         }
+      };
+      ParseOutcome outcome = parser.parseBounded("I left yesterday", REFERENCE,
+               ParseOptions.DEFAULT.withCancellation(cancellation));
+      Assert.assertEquals(ParseOutcome.Status.CANCELLED, outcome.getStatus());
+      Assert.assertEquals(1, outcome.getDates().size());
+      Assert.assertEquals(2, checks.get());
+
+      outcome = parser.parseBounded(LINES, REFERENCE, ParseOptions.DEFAULT.withChunkSize(16)
+               .withCancellation(new BooleanSupplier() {
+                  @Override
+                  public boolean getAsBoolean()
+                  {
+                     return checks.incrementAndGet() > 5;
+                  }
+               }));
+      Assert.assertEquals(ParseOutcome.Status.CANCELLED, outcome.getStatus());
+      Assert.assertEquals(3, outcome.getDateGroups().size());
+   }
+
+   @Test
+   public void testStopsOnInterrupt()
+   {
+      Thread.currentThread().interrupt();
+      try {
+         ParseOutcome outcome = parser.parseBounded("3 days ago", REFERENCE, ParseOptions.DEFAULT);
+         Assert.assertEquals(ParseOutcome.Status.CANCELLED, outcome.getStatus());
+         Assert.assertTrue(Thread.currentThread().isInterrupted());
+      }
+      finally {
+         Thread.interrupted();
+      }
+   }
+
+   @Test
+   public void testValidatesLimits()
+   {
+      Assert.assertEquals(Long.MAX_VALUE, ParseOptions.DEFAULT.getTimeout(TimeUnit.SECONDS));
+      Assert.assertEquals(2, ParseOptions.DEFAULT.withTimeout(2000, TimeUnit.MILLISECONDS).getTimeout(TimeUnit.SECONDS));
+      for (Runnable invalid : new Runnable[] { new Runnable() {
+         @Override
+         public void run()
+         {
+            ParseOptions.DEFAULT.withChunkSize(1);
+         }
+      }, new Runnable() {
+         @Override
+         public void run()
+         {
+            ParseOptions.DEFAULT.withMaxTokens(-1);
+         }
+      }, new Runnable() {
+         @Override
+         public void run()
+         {
+            ParseOptions.DEFAULT.withTimeout(-1, TimeUnit.SECONDS);
+         }
+      } }) {
+         try {
+            invalid.run();
+            Assert.fail();
+         }
+         catch (IllegalArgumentException e) {
+            // expected
+         }
+      }
+   }
+
+   private static List<Date> dates(List<DateGroup> groups)
+   {
+      List<Date> result = new ArrayList<Date>();
+      for (DateGroup group : groups) {
+         result.addAll(group.getDates());
+      }
+      return result;
+   }
+}
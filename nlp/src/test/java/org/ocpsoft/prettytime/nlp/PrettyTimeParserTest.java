@@ -1,9 +1,15 @@
 package org.ocpsoft.prettytime.nlp;
 
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.Assert;
 import org.junit.Ignore;
@@ -112,4 +118,163 @@ public class PrettyTimeParserTest
     Assert.assertEquals(6, calendar.get(Calendar.MONTH));
     Assert.assertEquals(2022, calendar.get(Calendar.YEAR));
   }
+
+   @Test
+   public void testConcurrentParsesMatchSequentialParse() throws Exception
+   {
+      final PrettyTimeParser parser = new PrettyTimeParser(TimeZone.getTimeZone("UTC"), 0);
+      final Date reference = new Date(1657830053000L);
+      final String[] inputs = { "yesterday", "I did it three days ago", "let's get lunch at two pm",
+               "in twenty one days", "next friday at seven fifteen" };
+      final List<List<Date>> expected = new ArrayList<List<Date>>();
+      for (String input : inputs) {
+         expected.add(parser.parse(input, reference));
+      }
+
+      ExecutorService executor = Executors.newFixedThreadPool(8);
+      try {
+         List<Future<Void>> results = new ArrayList<Future<Void>>();
+         for (int task = 0; task < 8; task++) {
+            results.add(executor.submit(new Callable<Void>() {
+               @Override
+               public Void call()
+               {
+                  for (int i = 0; i < 50; i++) {
+                     int index = i % inputs.length;
+                     Assert.assertEquals(expected.get(index), parser.parse(inputs[index], reference));
+                  }
+                  return null;
+               }
+            }));
+         }
+         for (Future<Void> result : results) {
+            result.get();
+         }
+      }
+      finally {
+         executor.shutdown();
+      }
+   }
+
+   @Test
+   public void testTemplatesReplayLikeParsing()
+   {
+      TimeZone timezone = TimeZone.getTimeZone("America/New_York");
+      PrettyTimeParser cached = new PrettyTimeParser(timezone);
+      PrettyTimeParser uncached = new PrettyTimeParser(timezone, 0);
+      String[] inputs = { "tomorrow at 5pm", "in two hours", "next monday", "last friday", "lunch at two pm",
+               "2022-08-01", "monkey business", "I did it 48 hours ago" };
+
+      // 2022-07-14 16:20:53.123 in New York, and later on the same day
+      long[] references = { 1657830053123L, 1657830053123L + 3 * 60 * 60 * 1000L + 4567, 1657830053123L + 61111 };
+      for (long reference : references) {
+         for (String input : inputs) {
+            Date date = new Date(reference);
+            Assert.assertEquals(input, uncached.parse(input, date), cached.parse(input, date));
+         }
+      }
+      Assert.assertEquals(inputs.length, cached.getTemplateCache().size());
+      Assert.assertEquals(2 * inputs.length, cached.getTemplateCache().getHits());
+      Assert.assertEquals(inputs.length, cached.getTemplateCache().getMisses());
+
+      // The next day needs new templates
+      Date nextDay = new Date(references[0] + 24 * 60 * 60 * 1000L);
+      Assert.assertEquals(uncached.parse("next monday", nextDay), cached.parse("next monday", nextDay));
+      Assert.assertEquals(inputs.length + 1, cached.getTemplateCache().getMisses());
+   }
+
+   @Test
+   public void testTemplatesAreNotReplayedAcrossOffsetChanges()
+   {
+      TimeZone timezone = TimeZone.getTimeZone("America/New_York");
+      PrettyTimeParser cached = new PrettyTimeParser(timezone);
+      PrettyTimeParser uncached = new PrettyTimeParser(timezone, 0);
+
+      // 2022-03-13 01:30:00.250 in New York, one hour before clocks moved forward, and three hours later
+      Date before = new Date(1647153000250L);
+      Date after = new Date(before.getTime() + 3 * 60 * 60 * 1000L);
+      Assert.assertEquals(uncached.parse("in two hours", before), cached.parse("in two hours", before));
+      Assert.assertEquals(uncached.parse("in two hours", after), cached.parse("in two hours", after));
+      Assert.assertEquals(0, cached.getTemplateCache().getHits());
+   }
+
+   @Test
+   public void testTemplateCacheIsBounded()
+   {
+      PrettyTimeParser parser = new PrettyTimeParser(TimeZone.getTimeZone("UTC"), 2);
+      Date reference = new Date(1657830053123L);
+      parser.parse("last friday", reference);
+      parser.parse("next friday", reference);
+      parser.parse("last friday", reference);
+      parser.parse("in two days", reference);
+      Assert.assertEquals(2, parser.getTemplateCache().size());
+      Assert.assertEquals(1, parser.getTemplateCache().getEvictions());
+
+      parser.parse("last friday", reference);
+      Assert.assertEquals(2, parser.getTemplateCache().getHits());
+      Assert.assertEquals(0.4, parser.getTemplateCache().getHitRatio(), 0.0001);
+   }
+
+   @Test
+   public void testTemplateCacheEvictsLeastRecentlyUsedInBatches()
+   {
+      ParseTemplateCache cache = new ParseTemplateCache(TimeZone.getTimeZone("UTC"), 16);
+      Date reference = new Date(1657830053123L);
+      List<Date> result = new ArrayList<Date>();
+      result.add(reference);
+      for (int i = 0; i < 16; i++) {
+         cache.put("text " + i, reference, result);
+      }
+      Assert.assertNotNull(cache.get("text 0", reference));
+      Assert.assertNotNull(cache.get("text 1", reference));
+
+      cache.put("text 16", reference, result);
+      Assert.assertEquals(14, cache.size());
+      Assert.assertEquals(3, cache.getEvictions());
+      Assert.assertNotNull(cache.get("text 0", reference));
+      Assert.assertNotNull(cache.get("text 1", reference));
+      Assert.assertNull(cache.get("text 2", reference));
+      Assert.assertNull(cache.get("text 4", reference));
+      Assert.assertNotNull(cache.get("text 5", reference));
+      Assert.assertNotNull(cache.get("text 16", reference));
+   }
+
+   @Test
+   public void testParseAllKeepsOrderAndIsolatesFailures() throws Exception
+   {
+      PrettyTimeParser parser = new PrettyTimeParser(TimeZone.getTimeZone("UTC"));
+      Date reference = new Date(1657830053123L);
+      List<String> inputs = new ArrayList<String>();
+      for (int i = 0; i < 100; i++) {
+         inputs.add(i % 3 == 0 ? "I did it three days ago" : i % 3 == 1 ? "lunch at two pm" : "nothing here");
+      }
+      inputs.set(42, null);
+
+      ExecutorService executor = Executors.newFixedThreadPool(4);
+      try {
+         List<ParseResult<List<Date>>> results = parser.parseAll(inputs, reference, executor);
+         Assert.assertEquals(inputs.size(), results.size());
+         for (int i = 0; i < inputs.size(); i++) {
+            ParseResult<List<Date>> result = results.get(i);
+            Assert.assertSame(inputs.get(i), result.getText());
+            if (i == 42) {
+               Assert.assertFalse(result.isSuccessful());
+               Assert.assertNotNull(result.getError());
+               Assert.assertNull(result.getValue());
+            }
+            else {
+               Assert.assertTrue(result.isSuccessful());
+               Assert.assertEquals(parser.parse(inputs.get(i), reference), result.getValue());
+            }
+         }
+
+         List<ParseResult<List<DateGroup>>> syntax = parser.parseSyntaxAll(inputs.subList(0, 3), reference, null);
+         Assert.assertEquals(10, syntax.get(0).getValue().get(0).getPosition());
+         Assert.assertEquals(parser.parse(inputs.get(1), reference), syntax.get(1).getValue().get(0).getDates());
+         Assert.assertTrue(syntax.get(2).getValue().isEmpty());
+      }
+      finally {
+         executor.shutdown();
+      }
+   }
 }
@@ -0,0 +1,114 @@
+package org.ocpsoft.prettytime.nlp;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.TimeZone;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.joestelmach.natty.DateGroup;
+import com.joestelmach.natty.Parser;
+
+public class RelativeDateParserTest
+{
+   // 2022-07-14 20:20:53.123 UTC
+   private static final long REFERENCE = 1657830053123L;
+   private static final long HOUR = 60 * 60 * 1000L;
+   private static final long DAY = 24 * HOUR;
+
+   private final RelativeDateParser parser = new RelativeDateParser(TimeZone.getTimeZone("UTC"));
+
+   @Test
+   public void testParsesCommonForms()
+   {
+      Assert.assertEquals(REFERENCE - 3 * DAY, parser.parse("3 days ago", REFERENCE));
+      Assert.assertEquals(REFERENCE + 2 * HOUR, parser.parse("in 2 hours", REFERENCE));
+      Assert.assertEquals(REFERENCE + 5 * 60 * 1000L, parser.parse("5 minutes from now", REFERENCE));
+      Assert.assertEquals(REFERENCE - DAY, parser.parse("Yesterday", REFERENCE));
+      Assert.assertEquals(REFERENCE + DAY, parser.parse(" TOMORROW ", REFERENCE));
+      Assert.assertEquals(REFERENCE - 30 * 1000L, parser.parse("30  secs ago", REFERENCE));
+      Assert.assertEquals(REFERENCE + 14 * DAY, parser.parse("in 2 wks", REFERENCE));
+      // 2022-06-14, 2021-07-14
+      Assert.assertEquals(REFERENCE - 30 * DAY, parser.parse("1 month ago", REFERENCE));
+      Assert.assertEquals(REFERENCE - 365 * DAY, parser.parse("1 year ago", REFERENCE));
+   }
+
+   @Test
+   public void testLeavesOtherTextToNatty()
+   {
+      for (String text : new String[] { "", "ago", "3 days", "in 3", "0 days ago", "1000 days ago", "in three days",
+               "3 days ago at noon", "3 fortnights ago", "3 days from", "yesterday at 5pm", "next monday",
+               "3days ago", "-3 days ago" }) {
+         Assert.assertEquals(text, RelativeDateParser.NO_MATCH, parser.parse(text, REFERENCE));
+      }
+   }
+
+   @Test
+   public void testMatchesNatty()
+   {
+      List<String> units = Arrays.asList("second", "minutes", "hr", "days", "week", "months", "year");
+      Random random = new Random(42);
+      for (String zone : new String[] { "UTC", "America/New_York", "Australia/Lord_Howe" }) {
+         TimeZone timezone = TimeZone.getTimeZone(zone);
+         RelativeDateParser relative = new RelativeDateParser(timezone);
+         Parser natty = new Parser(timezone);
+         for (int i = 0; i < 500; i++) {
+            // 2021 and 2022, often close to a change of the zone offset in the early morning
+            long reference = 1609459200000L + (long) (random.nextDouble() * 2 * 365 * DAY);
+            if (random.nextBoolean())
+               reference = reference - reference % HOUR + HOUR / 2 + random.nextInt(1000);
+
+            String unit = units.get(random.nextInt(units.size()));
+            int amount = 1 + random.nextInt(random.nextBoolean() ? 10 : 999);
+            String text;
+            switch (random.nextInt(5)) {
+            case 0:
+               text = amount + " " + unit + " ago";
+               break;
+            case 1:
+               text = "in " + amount + " " + unit;
+               break;
+            case 2:
+               text = amount + " " + unit + " from now";
+               break;
+            case 3:
+               text = "yesterday";
+               break;
+            default:
+               text = "tomorrow";
+            }
+
+            List<DateGroup> groups = natty.parse(text, new Date(reference));
+            Assert.assertEquals(text, 1, groups.size());
+            Assert.assertEquals(zone + " " + reference + " " + text, groups.get(0).getDates().get(0).getTime(),
+                     relative.parse(text, reference));
+         }
+      }
+   }
+
+   @Test
+   public void testParseBypassesNattyAndTemplates()
+   {
+      PrettyTimeParser prettyTimeParser = new PrettyTimeParser(TimeZone.getTimeZone("UTC"));
+      Assert.assertEquals(Arrays.asList(new Date(REFERENCE - 3 * DAY)),
+               prettyTimeParser.parse("3 days ago", new Date(REFERENCE)));
+      Assert.assertEquals(0, prettyTimeParser.getTemplateCache().getMisses());
+      Assert.assertEquals(0, prettyTimeParser.getTemplateCache().size());
+   }
+
+   @Test
+   public void testParseMillisMatchesParse()
+   {
+      PrettyTimeParser prettyTimeParser = new PrettyTimeParser(TimeZone.getTimeZone("UTC"));
+      Assert.assertEquals(REFERENCE - 3 * DAY, prettyTimeParser.parseMillis("3 days ago", REFERENCE));
+      Assert.assertEquals(0, prettyTimeParser.getTemplateCache().size());
+      for (String text : new String[] { "next monday at noon", "3 days ago at noon", "1000 days ago" }) {
+         Assert.assertEquals(text, prettyTimeParser.parse(text, new Date(REFERENCE)).get(0).getTime(),
+                  prettyTimeParser.parseMillis(text, REFERENCE));
+      }
+      Assert.assertEquals(PrettyTimeParser.NO_DATE, prettyTimeParser.parseMillis("nothing here", REFERENCE));
+   }
+}